@@ -0,0 +1,142 @@
+package com.infrasight.kodtest;
+
+import com.infrasight.kodtest.api.client.AccountApiClient;
+import com.infrasight.kodtest.api.client.ApiClient;
+import com.infrasight.kodtest.api.client.ApiClientConfig;
+import com.infrasight.kodtest.api.client.AuthenticationApiClient;
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.helper.SalaryHelper;
+import com.infrasight.kodtest.index.RelationshipGraph;
+import com.infrasight.kodtest.resolver.GroupAssociationResolver;
+import com.infrasight.kodtest.resolver.GroupMemberAccountResolver;
+import com.infrasight.kodtest.snapshot.DatasetLoader;
+import com.infrasight.kodtest.snapshot.DatasetSnapshot;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end scenarios against an in-process {@link KodtestServer}, including its random throttling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+    private static final int API_PORT = 8181;
+    private static final String VERAS_ACCOUNT_ID = "acc1337";
+    private static final String GROUP_ID_INTERIM_STAFF = "grp_inhyrda";
+
+    @Param({"defaults", "latency", "bulkThroughput"})
+    private String clientConfig;
+
+    private KodtestServer server;
+    private AccountApiClient accountApiClient;
+    private RelationshipApiClient relationshipApiClient;
+    private GroupApiClient groupApiClient;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        server = new KodtestServer(API_PORT, true, TestVariables.API_USER, TestVariables.API_PASSWORD);
+        server.start();
+
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .readTimeout(5, TimeUnit.SECONDS)
+                .connectTimeout(5, TimeUnit.SECONDS)
+                .build();
+        String accessToken = authenticateWhenUp(new AuthenticationApiClient(httpClient, API_PORT));
+        ApiClient apiClient = new ApiClient(httpClient, String.format("http://localhost:%d/api/", API_PORT),
+                accessToken, getClientConfig(clientConfig));
+        accountApiClient = new AccountApiClient(apiClient);
+        relationshipApiClient = new RelationshipApiClient(apiClient);
+        groupApiClient = new GroupApiClient(apiClient);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.shutdown();
+    }
+
+    @Benchmark
+    public long scanAllAccounts() {
+        try (Stream<Account> accounts = accountApiClient.streamAllAccounts()) {
+            return accounts.count();
+        }
+    }
+
+    @Benchmark
+    public Set<String> groupsForVeraViaApi() {
+        return new GroupAssociationResolver(relationshipApiClient, groupApiClient)
+                .getIdsForMembersDirectAndIndirectGroups(VERAS_ACCOUNT_ID);
+    }
+
+    @Benchmark
+    public double interimStaffSalaryViaApi() {
+        Set<String> accountIds = new GroupMemberAccountResolver(relationshipApiClient, groupApiClient)
+                .getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF);
+        List<Account> accounts = accountApiClient.getActiveAccountsByIds(accountIds);
+        return SalaryHelper.calculateTotalSalaryInSEK(accounts);
+    }
+
+    @Benchmark
+    public double interimStaffSalaryViaGraph() {
+        RelationshipGraph relationshipGraph = RelationshipGraph.load(relationshipApiClient);
+        Set<String> accountIds = new GroupMemberAccountResolver(relationshipGraph, groupApiClient)
+                .getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF);
+        List<Account> accounts = accountApiClient.getActiveAccountsByIds(accountIds);
+        return SalaryHelper.calculateTotalSalaryInSEK(accounts);
+    }
+
+    @Benchmark
+    public DatasetSnapshot warmUpSequentially() {
+        return DatasetSnapshot.fetch(accountApiClient, groupApiClient, relationshipApiClient);
+    }
+
+    @Benchmark
+    public DatasetSnapshot warmUpWithDatasetLoader() {
+        DatasetLoader datasetLoader = DatasetLoader.start(accountApiClient, groupApiClient, relationshipApiClient);
+        datasetLoader.getReady().join();
+        return datasetLoader.getSnapshot().join();
+    }
+
+    private static ApiClientConfig getClientConfig(String name) {
+        switch (name) {
+            case "latency":
+                return ApiClientConfig.latency();
+            case "bulkThroughput":
+                return ApiClientConfig.bulkThroughput();
+            default:
+                return ApiClientConfig.defaults();
+        }
+    }
+
+    private static String authenticateWhenUp(AuthenticationApiClient authenticationApiClient) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return authenticationApiClient.authenticate(TestVariables.API_USER, TestVariables.API_PASSWORD);
+            } catch (RuntimeException e) {
+                if (attempt >= 19) throw e;
+                Thread.sleep(500);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.infrasight.kodtest.api.client;
+
+import com.infrasight.kodtest.api.model.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Full scans of canned account pages of 250 records through the whole {@link ApiClient} stack: request building,
+ * rate limiting, "Content-Range" handling and JSON parsing, without network I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiClientBenchmark {
+    private static final String ENDPOINT = "accounts";
+    private static final int RECORDS_PER_PAGE = 250;
+
+    @Param({"10000"})
+    private int accountCount;
+
+    @Param({"1", "4"})
+    private int pageFetchParallelism;
+
+    private ApiClient apiClient;
+    private PaginationHandler paginationHandler;
+
+    @Setup
+    public void setUp() {
+        CannedApi cannedApi = new CannedApi(RECORDS_PER_PAGE)
+                .withRecords(ENDPOINT, BenchmarkData.accountRecords(0, accountCount));
+        apiClient = cannedApi.apiClient(pageFetchParallelism);
+        paginationHandler = new PaginationHandler();
+    }
+
+    @Benchmark
+    public List<Account> getRecords() {
+        return apiClient.getRecords(ENDPOINT, Account.class, null);
+    }
+
+    @Benchmark
+    public List<Account> getRecordsAsync() {
+        return apiClient.getRecordsAsync(ENDPOINT, Account.class, null).join();
+    }
+
+    @Benchmark
+    public int forEachRecord() {
+        AtomicInteger activeAccounts = new AtomicInteger();
+        apiClient.forEachRecord(ENDPOINT, Account.class, null, account -> {
+            if (account.isActive()) activeAccounts.incrementAndGet();
+        });
+        return activeAccounts.get();
+    }
+
+    @Benchmark
+    public long streamRecords() {
+        try (Stream<Account> accounts = apiClient.streamRecords(ENDPOINT, Account.class, null)) {
+            return accounts.filter(Account::isActive).count();
+        }
+    }
+
+    @Benchmark
+    public Account getRecordsByFilter() {
+        return apiClient.getRecords(ENDPOINT, Account.class, "id=acc" + (accountCount / 2)).get(0);
+    }
+
+    @Benchmark
+    public void paginationHandlerExtract(Blackhole blackhole) {
+        String contentRange = "items 1250-1499/10000";
+        blackhole.consume(paginationHandler.isLastPage(contentRange));
+        blackhole.consume(paginationHandler.extractTotalItems(contentRange));
+        blackhole.consume(paginationHandler.extractNextSkip(contentRange));
+    }
+
+    @Benchmark
+    public ContentRange paginationHandlerParse() {
+        return paginationHandler.parse("items 1250-1499/10000");
+    }
+}
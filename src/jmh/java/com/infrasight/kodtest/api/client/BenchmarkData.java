@@ -0,0 +1,163 @@
+package com.infrasight.kodtest.api.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic API records for benchmarks, shaped like the responses of the accounts, groups and relationships endpoints.
+ */
+public final class BenchmarkData {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String[] CURRENCIES = {"SEK", "EUR", "DKK"};
+    private static final long FIRST_EMPLOYMENT_EPOCH_SECOND = 1262304000L; // 2010-01-01
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Builds account records with IDs {@code acc<firstIndex>} and onwards. Every tenth account is inactive.
+     *
+     * @param firstIndex The index of the first account, used for its ID.
+     * @param count      The number of accounts.
+     * @return The account records.
+     */
+    public static List<Map<String, Object>> accountRecords(int firstIndex, int count) {
+        List<Map<String, Object>> accounts = new ArrayList<>(count);
+        for (int i = firstIndex; i < firstIndex + count; i++) {
+            Map<String, Object> account = new LinkedHashMap<>();
+            account.put("objectType", "Account");
+            account.put("id", "acc" + i);
+            account.put("employeeId", String.valueOf(1000 + i));
+            account.put("firstName", "First" + i);
+            account.put("lastName", "Last" + i);
+            account.put("active", i % 10 != 0);
+            account.put("salary", 20000 + (i * 37) % 30000);
+            account.put("salaryCurrency", CURRENCIES[i % CURRENCIES.length]);
+            account.put("employedSince", FIRST_EMPLOYMENT_EPOCH_SECOND + (i % 5000) * 86400L);
+            account.put("age", 20 + i % 45);
+            account.put("phone", "+46 70 " + (1000000 + i));
+            account.put("foodPreference", "None");
+            account.put("computer", true);
+            account.put("computerModel", "Laptop");
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    /**
+     * Builds a JSON array of accounts.
+     *
+     * @param firstIndex The index of the first account, used for its ID.
+     * @param count      The number of accounts.
+     * @return The JSON array.
+     */
+    public static String accountsJson(int firstIndex, int count) {
+        return toJson(accountRecords(firstIndex, count));
+    }
+
+    /**
+     * Builds a balanced group hierarchy where every group has {@code fanout} subgroups down to the given depth, and
+     * every leaf group has {@code accountsPerLeaf} member accounts. Every group is active.
+     *
+     * @param depth           The number of group levels below the root group.
+     * @param fanout          The number of subgroups of each non-leaf group.
+     * @param accountsPerLeaf The number of accounts in each leaf group.
+     * @return The hierarchy.
+     */
+    public static Hierarchy hierarchy(int depth, int fanout, int accountsPerLeaf) {
+        Hierarchy hierarchy = new Hierarchy();
+        List<String> level = List.of(hierarchy.addGroup("grp_root"));
+        for (int d = 1; d <= depth; d++) {
+            List<String> nextLevel = new ArrayList<>();
+            for (String parentId : level) {
+                for (int f = 0; f < fanout; f++) {
+                    String groupId = hierarchy.addGroup(parentId + "_" + f);
+                    hierarchy.addMembership(parentId, groupId);
+                    nextLevel.add(groupId);
+                }
+            }
+            level = nextLevel;
+        }
+        int accountIndex = 0;
+        for (String leafId : level) {
+            for (int a = 0; a < accountsPerLeaf; a++) {
+                String accountId = "acc" + accountIndex++;
+                hierarchy.addMembership(leafId, accountId);
+                hierarchy.deepestAccountId = accountId;
+            }
+        }
+        hierarchy.accountCount = accountIndex;
+        return hierarchy;
+    }
+
+    public static String toJson(Object value) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static <T> List<T> toRecords(List<Map<String, Object>> records, Class<T> clazz) {
+        List<T> converted = new ArrayList<>(records.size());
+        for (Map<String, Object> record : records) {
+            converted.add(OBJECT_MAPPER.convertValue(record, clazz));
+        }
+        return converted;
+    }
+
+    /**
+     * Synthetic group and relationship records of a group hierarchy.
+     */
+    public static final class Hierarchy {
+        private final List<Map<String, Object>> groups = new ArrayList<>();
+        private final List<Map<String, Object>> relationships = new ArrayList<>();
+        private String deepestAccountId;
+        private int accountCount;
+
+        public List<Map<String, Object>> getGroups() {
+            return groups;
+        }
+
+        public List<Map<String, Object>> getRelationships() {
+            return relationships;
+        }
+
+        public String getRootGroupId() {
+            return "grp_root";
+        }
+
+        public String getDeepestAccountId() {
+            return deepestAccountId;
+        }
+
+        public int getAccountCount() {
+            return accountCount;
+        }
+
+        private String addGroup(String groupId) {
+            Map<String, Object> group = new LinkedHashMap<>();
+            group.put("objectType", "Group");
+            group.put("id", groupId);
+            group.put("name", groupId);
+            group.put("active", true);
+            groups.add(group);
+            return groupId;
+        }
+
+        private void addMembership(String groupId, String memberId) {
+            Map<String, Object> relationship = new LinkedHashMap<>();
+            relationship.put("objectType", "GroupMember");
+            relationship.put("id", "rel" + relationships.size());
+            relationship.put("groupId", groupId);
+            relationship.put("memberId", memberId);
+            relationships.add(relationship);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.infrasight.kodtest.api.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory stand-in for the Kodtest API, served by an OkHttp interceptor so benchmarks exercise the whole client
+ * stack without network I/O. Supports "skip", "take" (capped like the real API) and "filter" with field=value syntax.
+ * Unfiltered pages are serialized once and cached, so JSON encoding does not show up in client measurements.
+ */
+public class CannedApi {
+    public static final String BASE_URL = "http://kodtest.invalid/api/";
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, List<Map<String, Object>>> recordsByEndpoint = new HashMap<>();
+    private final Map<String, byte[]> unfilteredPages = new ConcurrentHashMap<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final int maxTake;
+
+    /**
+     * @param maxTake The maximum number of records returned per page.
+     */
+    public CannedApi(int maxTake) {
+        this.maxTake = maxTake;
+    }
+
+    public CannedApi withRecords(String endpoint, List<Map<String, Object>> records) {
+        recordsByEndpoint.put(endpoint, records);
+        return this;
+    }
+
+    public OkHttpClient httpClient() {
+        return new OkHttpClient.Builder().addInterceptor(this::serve).build();
+    }
+
+    public ApiClient apiClient(int pageFetchParallelism) {
+        return new ApiClient(httpClient(), BASE_URL, "benchmark-token", pageFetchParallelism);
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    private Response serve(Interceptor.Chain chain) {
+        requestCount.incrementAndGet();
+        HttpUrl url = chain.request().url();
+        List<String> pathSegments = url.pathSegments();
+        String endpoint = pathSegments.get(pathSegments.size() - 1);
+        int skip = parseOrDefault(url.queryParameter("skip"), 0);
+        int take = Math.min(parseOrDefault(url.queryParameter("take"), maxTake), maxTake);
+        String filter = url.queryParameter("filter");
+
+        List<Map<String, Object>> records = recordsByEndpoint.getOrDefault(endpoint, Collections.emptyList());
+        byte[] body;
+        int total;
+        int returned;
+        if (filter == null || filter.isBlank()) {
+            total = records.size();
+            returned = Math.max(0, Math.min(take, total - skip));
+            body = unfilteredPages.computeIfAbsent(endpoint + "?" + skip + "&" + take,
+                    key -> toJson(records.subList(Math.min(skip, total), Math.min(skip + returned, total))));
+        } else {
+            String field = filter.substring(0, filter.indexOf('='));
+            String value = filter.substring(filter.indexOf('=') + 1);
+            List<Map<String, Object>> matching = records.stream()
+                    .filter(record -> Objects.equals(String.valueOf(record.get(field)), value))
+                    .collect(Collectors.toList());
+            total = matching.size();
+            returned = Math.max(0, Math.min(take, total - skip));
+            body = toJson(matching.subList(Math.min(skip, total), Math.min(skip + returned, total)));
+        }
+
+        String contentRange = returned == 0
+                ? String.format("items */%d", total)
+                : String.format("items %d-%d/%d", skip, skip + returned - 1, total);
+        return new Response.Builder()
+                .request(chain.request())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .header("Content-Range", contentRange)
+                .body(ResponseBody.create(body, JSON))
+                .build();
+    }
+
+    private byte[] toJson(List<Map<String, Object>> records) {
+        try {
+            return objectMapper.writeValueAsBytes(records);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int parseOrDefault(String value, int defaultValue) {
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,90 @@
+package com.infrasight.kodtest.api.client;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.infrasight.kodtest.api.model.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-page hot path before and after caching readers and parsing "Content-Range" in a single pass.
+ * The {@code baseline*} benchmarks reproduce the previous implementation.
+ * <p>
+ * Run with {@code mvn -P benchmark test-compile exec:exec -Dbenchmark=PageHotPathBenchmark}.
+ * Add {@code -prof gc} to the JMH arguments to compare allocation rates.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageHotPathBenchmark {
+    private static final String PAGINATION_HEADER_PATTERN = "items (\\d+)-(\\d+)/(\\d+)";
+    private static final String CONTENT_RANGE = "items 1250-1274/8125";
+
+    @Param({"25", "250"})
+    private int recordsPerPage;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectReader accountReader;
+    private byte[] page;
+
+    @Setup
+    public void setUp() {
+        accountReader = objectMapper.readerFor(Account.class);
+        page = BenchmarkData.accountsJson(0, recordsPerPage).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void baselineContentRangeRegex(Blackhole blackhole) {
+        Matcher totalMatcher = Pattern.compile(PAGINATION_HEADER_PATTERN).matcher(CONTENT_RANGE);
+        blackhole.consume(totalMatcher.matches() ? Integer.parseInt(totalMatcher.group(3)) : Integer.MAX_VALUE);
+        Matcher skipMatcher = Pattern.compile(PAGINATION_HEADER_PATTERN).matcher(CONTENT_RANGE);
+        blackhole.consume(skipMatcher.matches() ? Integer.parseInt(skipMatcher.group(2)) + 1 : Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public void contentRangeSinglePass(Blackhole blackhole) {
+        ContentRange contentRange = ContentRange.parse(CONTENT_RANGE);
+        blackhole.consume(contentRange.getTotal());
+        blackhole.consume(contentRange.getNextSkip());
+    }
+
+    @Benchmark
+    public List<Account> baselineParsePageViaString() throws IOException {
+        String body = new String(page, StandardCharsets.UTF_8);
+        JavaType responseType = objectMapper.getTypeFactory().constructCollectionType(List.class, Account.class);
+        return objectMapper.readValue(body, responseType);
+    }
+
+    @Benchmark
+    public void parsePageWithCachedReader(Blackhole blackhole) throws IOException {
+        try (MappingIterator<Account> records = accountReader.readValues(new ByteArrayInputStream(page))) {
+            while (records.hasNextValue()) {
+                blackhole.consume(records.nextValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.infrasight.kodtest.helper;
+
+import com.infrasight.kodtest.api.client.BenchmarkData;
+import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.index.AccountTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Salary aggregation and employment date filtering over in-memory accounts, as lists of {@link Account} objects and
+ * as an {@link AccountTable}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelperBenchmark {
+    private static final LocalDate EMPLOYMENT_START_DATE = LocalDate.of(2019, 1, 1);
+    private static final LocalDate EMPLOYMENT_END_DATE = LocalDate.of(2022, 12, 31);
+
+    @Param({"100000"})
+    private int accountCount;
+
+    private List<Account> accounts;
+    private AccountTable accountTable;
+
+    @Setup
+    public void setUp() {
+        accounts = BenchmarkData.toRecords(BenchmarkData.accountRecords(0, accountCount), Account.class);
+        accountTable = new AccountTable(accounts);
+    }
+
+    @Benchmark
+    public double calculateTotalSalaryInSEK() {
+        return SalaryHelper.calculateTotalSalaryInSEK(accounts);
+    }
+
+    @Benchmark
+    public List<Account> filterAccountsByEmploymentDate() {
+        return AccountHelper.filterAccountsByEmploymentDate(accounts, EMPLOYMENT_START_DATE, EMPLOYMENT_END_DATE);
+    }
+
+    @Benchmark
+    public long accountTableSumSalaryInOre() {
+        return accountTable.sumSalaryInOre(accountTable.selectAll());
+    }
+
+    @Benchmark
+    public BitSet accountTableSelectEmployedBetween() {
+        return accountTable.selectEmployedBetween(EMPLOYMENT_START_DATE, EMPLOYMENT_END_DATE);
+    }
+}
@@ -0,0 +1,122 @@
+package com.infrasight.kodtest.resolver;
+
+import com.infrasight.kodtest.api.client.ApiClient;
+import com.infrasight.kodtest.api.client.BenchmarkData;
+import com.infrasight.kodtest.api.client.CannedApi;
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.model.Relationship;
+import com.infrasight.kodtest.index.MembershipIndex;
+import com.infrasight.kodtest.index.RelationshipGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolver traversals over synthetic balanced group hierarchies of several depths, answered either through the
+ * (canned) API with one request per visited group, or from an in-memory {@link RelationshipGraph}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolverBenchmark {
+    private static final int FANOUT = 4;
+    private static final int ACCOUNTS_PER_LEAF = 5;
+    private static final int RELATIONSHIPS_PER_PAGE = 50;
+    private static final int TRAVERSAL_PARALLELISM = 8;
+
+    @Param({"2", "4", "6"})
+    private int depth;
+
+    private BenchmarkData.Hierarchy hierarchy;
+    private GroupApiClient groupApiClient;
+    private RelationshipApiClient relationshipApiClient;
+    private RelationshipGraph relationshipGraph;
+    private GroupMemberAccountResolver memberResolverViaApi;
+    private GroupMemberAccountResolver memberResolverViaGraph;
+    private GroupMemberAccountResolver parallelMemberResolverViaApi;
+    private GroupAssociationResolver associationResolverViaApi;
+    private GroupAssociationResolver associationResolverViaGraph;
+
+    @Setup
+    public void setUp() {
+        hierarchy = BenchmarkData.hierarchy(depth, FANOUT, ACCOUNTS_PER_LEAF);
+        ApiClient apiClient = new CannedApi(RELATIONSHIPS_PER_PAGE)
+                .withRecords("groups", hierarchy.getGroups())
+                .withRecords("relationships", hierarchy.getRelationships())
+                .apiClient(1);
+        groupApiClient = new GroupApiClient(apiClient);
+        relationshipApiClient = new RelationshipApiClient(apiClient);
+        relationshipGraph = new RelationshipGraph(BenchmarkData.toRecords(hierarchy.getRelationships(), Relationship.class));
+
+        memberResolverViaApi = new GroupMemberAccountResolver(relationshipApiClient, groupApiClient);
+        memberResolverViaGraph = new GroupMemberAccountResolver(relationshipGraph, groupApiClient);
+        parallelMemberResolverViaApi = new GroupMemberAccountResolver(relationshipApiClient, groupApiClient,
+                TRAVERSAL_PARALLELISM);
+        associationResolverViaApi = new GroupAssociationResolver(relationshipApiClient, groupApiClient);
+        associationResolverViaGraph = new GroupAssociationResolver(relationshipGraph, groupApiClient);
+
+        // resolvers cache group IDs lazily, load them outside of the measurements
+        memberResolverViaApi.getAccountIdsForGroup(hierarchy.getRootGroupId());
+        memberResolverViaGraph.getAccountIdsForGroup(hierarchy.getRootGroupId());
+        parallelMemberResolverViaApi.getAccountIdsForGroup(hierarchy.getRootGroupId());
+        associationResolverViaApi.getIdsForMembersDirectGroups(hierarchy.getDeepestAccountId());
+        associationResolverViaGraph.getIdsForMembersDirectGroups(hierarchy.getDeepestAccountId());
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallelMemberResolverViaApi.close();
+    }
+
+    @Benchmark
+    public Set<String> accountsForRootGroupViaApi() {
+        return memberResolverViaApi.getAccountIdsForGroup(hierarchy.getRootGroupId());
+    }
+
+    @Benchmark
+    public Set<String> accountsForRootGroupViaApiInParallel() {
+        return parallelMemberResolverViaApi.getAccountIdsForGroup(hierarchy.getRootGroupId());
+    }
+
+    @Benchmark
+    public Set<String> accountsForRootGroupViaGraph() {
+        return memberResolverViaGraph.getAccountIdsForGroup(hierarchy.getRootGroupId());
+    }
+
+    @Benchmark
+    public Set<String> groupsForDeepestAccountViaApi() {
+        return associationResolverViaApi.getIdsForMembersDirectAndIndirectGroups(hierarchy.getDeepestAccountId());
+    }
+
+    @Benchmark
+    public Set<String> groupsForDeepestAccountViaGraph() {
+        return associationResolverViaGraph.getIdsForMembersDirectAndIndirectGroups(hierarchy.getDeepestAccountId());
+    }
+
+    @Benchmark
+    public MembershipIndex buildMembershipIndex() {
+        return MembershipIndex.load(relationshipGraph, groupApiClient);
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> groupsForAllAccountsInBulk() {
+        return MemoizingGroupResolver.load(relationshipGraph, groupApiClient).getGroupIdsByAccountId();
+    }
+}
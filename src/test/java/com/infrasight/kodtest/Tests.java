@@ -2,23 +2,71 @@ package com.infrasight.kodtest;
 
 import com.infrasight.kodtest.api.client.*;
 import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.api.model.ApiRecord;
+import com.infrasight.kodtest.api.model.Group;
 import com.infrasight.kodtest.api.model.Relationship;
+import com.infrasight.kodtest.cache.CacheStats;
+import com.infrasight.kodtest.cache.RecordCache;
+import com.infrasight.kodtest.exception.ApiClientException;
+import com.infrasight.kodtest.exception.AuthenticationApiClientException;
+import com.infrasight.kodtest.exception.SnapshotException;
 import com.infrasight.kodtest.helper.AccountHelper;
 import com.infrasight.kodtest.helper.SalaryHelper;
+import com.infrasight.kodtest.index.AccountTable;
+import com.infrasight.kodtest.index.GroupIndex;
+import com.infrasight.kodtest.index.ManagerIndex;
+import com.infrasight.kodtest.index.MembershipIndex;
+import com.infrasight.kodtest.index.RelationshipGraph;
+import com.infrasight.kodtest.metrics.MetricsSnapshot;
+import com.infrasight.kodtest.metrics.QueryStats;
 import com.infrasight.kodtest.resolver.GroupAssociationResolver;
 import com.infrasight.kodtest.resolver.GroupMemberAccountResolver;
+import com.infrasight.kodtest.resolver.MemoizingGroupResolver;
+import com.infrasight.kodtest.snapshot.DatasetLoader;
+import com.infrasight.kodtest.snapshot.DatasetSnapshot;
+import com.infrasight.kodtest.snapshot.DatasetSync;
+import com.infrasight.kodtest.snapshot.SnapshotFile;
+import com.infrasight.kodtest.trace.LevelStats;
+import com.infrasight.kodtest.trace.QueryTrace;
+import com.infrasight.kodtest.trace.TraceNode;
+import com.infrasight.kodtest.trace.TracingRelationshipLookup;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.infrasight.kodtest.TestVariables.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Simple concrete class for JUnit tests with uses {@link TestsSetup} as a
@@ -37,6 +85,10 @@ import static org.junit.Assert.assertTrue;
  *   <li> {@link AccountApiClient}, {@link RelationshipApiClient} and {@link GroupApiClient} uses {@link ApiClient},
  *        providing access to the API for their corresponding API record classes.</li>
  *   <li> For simplicity all API clients are instantiated before each test, as well as the required authentication.</li>
+ *   <li> {@link CachingApiClient} caches query results by endpoint and filter, so repeated lookups such as the
+ *        manager accounts in assignment 5 are not sent to the API again.</li>
+ *   <li> The API only filters on one field value, so {@link AccountQuery} sends the most selective criterion to the
+ *        API and evaluates the rest on the returned accounts, as in assignment 1 and 5.</li>
  *   <li> All API-calls goes via the same method in {@link ApiClient}, which handles pagination. One could consider adding
  *        another method for calls that only fetch one object, like getAccountById in {@link AccountApiClient}...</li>
  *  </ul>
@@ -49,7 +101,12 @@ public class Tests extends TestsSetup {
     public static final String GROUP_ID_SALES = "grp_saljare";
     public static final String GROUP_ID_SWEDEN = "grp_sverige";
     public static final String GROUP_ID_INTERIM_STAFF = "grp_inhyrda";
+    private static final ApiClientConfig API_CLIENT_CONFIG = ApiClientConfig.latency();
+    private static final Duration TOKEN_LIFETIME = Duration.ofMinutes(30);
 
+    private TokenProvider tokenProvider;
+    private String apiBaseUrl;
+    private CachingApiClient apiClient;
     private AccountApiClient accountApiClient;
     private RelationshipApiClient relationshipApiClient;
     private GroupApiClient groupApiClient;
@@ -58,10 +115,12 @@ public class Tests extends TestsSetup {
     public void setUp() throws IOException {
         OkHttpClient httpClient = getHttpClientBuilder().build();
         AuthenticationApiClient authenticationApiClient = new AuthenticationApiClient(httpClient, API_PORT);
-        String accessToken = authenticationApiClient.authenticate(API_USER, API_PASSWORD);
-        String apiBaseUrl = String.format("http://localhost:%d/api/", API_PORT);
+        tokenProvider = TokenProvider.forCredentials(authenticationApiClient, API_USER, API_PASSWORD,
+                TOKEN_LIFETIME);
+        tokenProvider.getToken();
+        apiBaseUrl = String.format("http://localhost:%d/api/", API_PORT);
 
-        ApiClient apiClient = new ApiClient(httpClient, apiBaseUrl, accessToken);
+        apiClient = new CachingApiClient(httpClient, apiBaseUrl, tokenProvider, API_CLIENT_CONFIG);
         accountApiClient = new AccountApiClient(apiClient);
         relationshipApiClient = new RelationshipApiClient(apiClient);
         groupApiClient = new GroupApiClient(apiClient);
@@ -87,10 +146,9 @@ public class Tests extends TestsSetup {
         assertEquals("Last name correct on account", VERAS_LAST_NAME, accountForVera.getLastName());
 
         // getting accounts by first and last name (to check for more accounts)
-        List<Account> accountsByFirstAndLastName = accountApiClient.getAccountsByFirstName(VERAS_FIRST_NAME)
-                .stream()
-                .filter(a -> VERAS_LAST_NAME.equals(a.getLastName()))
-                .collect(Collectors.toList());
+        List<Account> accountsByFirstAndLastName = accountApiClient.query(
+                AccountQuery.where(AccountQuery.Field.FIRST_NAME, VERAS_FIRST_NAME)
+                        .and(AccountQuery.Field.LAST_NAME, VERAS_LAST_NAME));
 
         for (Account account : accountsByFirstAndLastName) {
             assertEquals("Account id via first and last name is the same as Veras account (via employeeId)",
@@ -178,20 +236,19 @@ public class Tests extends TestsSetup {
                 .filter(accountIdsForSwedishEmployees::contains)
                 .collect(Collectors.toSet());
 
-        List<Account> accountsForSwedishSalesStaff = accountApiClient.getActiveAccountsByIds(accountIdsForSwedishSalesStaff);
-
-        List<Account> resultingAccounts = AccountHelper.filterAccountsByEmploymentDate(
-                accountsForSwedishSalesStaff,
-                LocalDate.of(2019, 1, 1),
-                LocalDate.of(2022, 12, 31));
+        // fetching the active accounts employed 2019-2022, with the ID criterion pushed down to the API
+        List<Account> resultingAccounts = accountApiClient.query(
+                AccountQuery.whereIn(AccountQuery.Field.ID, accountIdsForSwedishSalesStaff)
+                        .activeOnly()
+                        .employedBetween(LocalDate.of(2019, 1, 1), LocalDate.of(2022, 12, 31)));
 
-        // collecting managers and their number of accounts
-        Map<String, Integer> managerIdToAccountCounts = new HashMap<>();
-        for (Account account : resultingAccounts) {
-            Relationship managerRelationship = relationshipApiClient.getRelationshipsByManagedId(account.getId());
-            String managerId = managerRelationship.getAccountId();
-            managerIdToAccountCounts.put(managerId, managerIdToAccountCounts.getOrDefault(managerId, 0) + 1);
+        // collecting managers and their number of accounts, from one scan of the manager relationships
+        ManagerIndex managerIndex = ManagerIndex.load(relationshipApiClient);
+        List<String> resultingAccountIds = resultingAccounts.stream().map(Account::getId).collect(Collectors.toList());
+        for (String accountId : resultingAccountIds) {
+            assertNotNull("Manager for account with ID " + accountId, managerIndex.getManagerId(accountId));
         }
+        Map<String, Integer> managerIdToAccountCounts = managerIndex.countByManager(resultingAccountIds);
 
         Map<String, Integer> expectedManagerIdToAccounts = new HashMap<>();
         expectedManagerIdToAccounts.put("acc43", 8);
@@ -221,4 +278,773 @@ public class Tests extends TestsSetup {
                         System.out.println(managerAccounts.get(entry.getKey()).getFullName() + ": " + entry.getValue())
                 );
     }
+
+    @Test
+    public void relationshipGraphResolvesLikeApi() {
+        assertTrue(serverUp);
+
+        RelationshipGraph relationshipGraph = RelationshipGraph.load(relationshipApiClient);
+        Account accountForVera = accountApiClient.getAccountsByEmployeeId(VERAS_EMPLOYEE_ID).iterator().next();
+
+        assertEquals("Groups for Vera via graph match groups via API",
+                new GroupAssociationResolver(relationshipApiClient, groupApiClient).getIdsForMembersDirectAndIndirectGroups(accountForVera.getId()),
+                new GroupAssociationResolver(relationshipGraph, groupApiClient).getIdsForMembersDirectAndIndirectGroups(accountForVera.getId()));
+        assertEquals("Interim staff via graph match interim staff via API",
+                new GroupMemberAccountResolver(relationshipApiClient, groupApiClient).getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF),
+                new GroupMemberAccountResolver(relationshipGraph, groupApiClient).getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF));
+    }
+
+    @Test
+    public void membershipIndexIntersectsLikeResolver() {
+        assertTrue(serverUp);
+
+        RelationshipGraph relationshipGraph = RelationshipGraph.load(relationshipApiClient);
+        MembershipIndex membershipIndex = MembershipIndex.load(relationshipGraph, groupApiClient);
+        GroupMemberAccountResolver groupMemberAccountResolver = new GroupMemberAccountResolver(relationshipGraph, groupApiClient);
+
+        Set<String> accountIdsForSwedishEmployees = groupMemberAccountResolver.getAccountIdsForGroup(GROUP_ID_SWEDEN);
+        Set<String> accountIdsForSwedishSalesStaff = groupMemberAccountResolver.getAccountIdsForGroup(GROUP_ID_SALES).stream()
+                .filter(accountIdsForSwedishEmployees::contains)
+                .collect(Collectors.toSet());
+
+        assertEquals("Swedish sales staff via index match resolver",
+                accountIdsForSwedishSalesStaff, membershipIndex.getAccountIdsInAllGroups(GROUP_ID_SALES, GROUP_ID_SWEDEN));
+        assertEquals("Number of Swedish sales staff via index match resolver",
+                accountIdsForSwedishSalesStaff.size(), membershipIndex.countAccountsInAllGroups(GROUP_ID_SALES, GROUP_ID_SWEDEN));
+    }
+
+    @Test
+    public void streamedAccountsStopAtLimit() {
+        assertTrue(serverUp);
+
+        // more than one page, as the API returns at most 25 accounts per page
+        try (Stream<Account> accounts = accountApiClient.streamAllAccounts()) {
+            List<String> accountIds = accounts.limit(60).map(Account::getId).collect(Collectors.toList());
+            assertEquals("Number of streamed accounts", 60, accountIds.size());
+            assertEquals("Streamed accounts are distinct", 60, new HashSet<>(accountIds).size());
+        }
+    }
+
+    @Test
+    public void repeatedAccountLookupsAreCached() {
+        assertTrue(serverUp);
+
+        Account accountForVera = accountApiClient.getAccountsByEmployeeId(VERAS_EMPLOYEE_ID).iterator().next();
+        CacheStats statsBefore = apiClient.getCacheStats();
+        Account cachedAccountForVera = accountApiClient.getAccountById(accountForVera.getId());
+        Account repeatedAccountForVera = accountApiClient.getAccountById(accountForVera.getId());
+        CacheStats statsAfter = apiClient.getCacheStats();
+
+        assertEquals("Cached account", accountForVera, cachedAccountForVera);
+        assertEquals("Repeated lookup returns cached account", cachedAccountForVera, repeatedAccountForVera);
+        assertEquals("Number of loads", 1, statsAfter.getLoadCount() - statsBefore.getLoadCount());
+        assertEquals("Number of hits", 1, statsAfter.getHitCount() - statsBefore.getHitCount());
+    }
+
+    @Test
+    public void asyncRetrievalMatchesBlockingRetrieval() {
+        assertTrue(serverUp);
+
+        // a client without a cache, so that both retrievals fetch every page
+        AccountApiClient uncachedAccountApiClient = new AccountApiClient(
+                new ApiClient(getHttpClientBuilder().build(), apiBaseUrl, tokenProvider, API_CLIENT_CONFIG));
+        List<String> blockingAccountIds = uncachedAccountApiClient.getAllAccounts().stream()
+                .map(Account::getId)
+                .collect(Collectors.toList());
+        List<String> asyncAccountIds = uncachedAccountApiClient.getAllAccountsAsync().join().stream()
+                .map(Account::getId)
+                .collect(Collectors.toList());
+        assertTrue("Accounts span several pages", blockingAccountIds.size() > 25);
+        assertEquals("Async retrieval returns the same accounts in the same order", blockingAccountIds, asyncAccountIds);
+
+        // the server rejects a filter with a blank value with 400 (Bad Request)
+        CompletableFuture<List<Account>> rejected = uncachedAccountApiClient.getAccountsByFirstNameAsync("");
+        try {
+            rejected.join();
+            fail("Rejected request completes exceptionally");
+        } catch (CompletionException e) {
+            assertTrue("Failure is an ApiClientException", e.getCause() instanceof ApiClientException);
+            assertTrue("Failure reports the status", e.getCause().getMessage().contains("400"));
+        }
+    }
+
+    @Test
+    public void activeAccountsByManyIdsMatchPointLookups() {
+        assertTrue(serverUp);
+
+        // looking up every account makes the planner choose a full scan
+        Set<String> accountIds = accountApiClient.getAllAccounts().stream()
+                .map(Account::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        assertTrue("More IDs than are always looked up by point lookups", accountIds.size() > 10);
+
+        // a client without a cache, so that the expected accounts come from real point lookups
+        AccountApiClient pointLookupClient = new AccountApiClient(
+                new ApiClient(getHttpClientBuilder().build(), apiBaseUrl, tokenProvider, API_CLIENT_CONFIG));
+        List<String> expectedAccountIds = pointLookupClient.getActiveAccountsByIdsAsync(accountIds).join().stream()
+                .map(Account::getId)
+                .collect(Collectors.toList());
+        List<String> actualAccountIds = accountApiClient.getActiveAccountsByIds(accountIds).stream()
+                .map(Account::getId)
+                .collect(Collectors.toList());
+
+        assertEquals("Active accounts by scan match point lookups, in order", expectedAccountIds, actualAccountIds);
+    }
+
+    @Test
+    public void batchedMemberLookupsMatchPointLookups() {
+        assertTrue(serverUp);
+
+        AtomicInteger requestCount = new AtomicInteger();
+        OkHttpClient countingHttpClient = getHttpClientBuilder()
+                .addInterceptor(chain -> {
+                    requestCount.incrementAndGet();
+                    return chain.proceed(chain.request());
+                })
+                .build();
+        ApiClient countingApiClient = new ApiClient(countingHttpClient, apiBaseUrl, tokenProvider, API_CLIENT_CONFIG);
+        // a long batch window, so that the lookups share a batch even when they are slow to be sent
+        RelationshipApiClient batchingRelationshipApiClient = new RelationshipApiClient(countingApiClient, Duration.ofSeconds(1));
+        List<String> accountIds;
+        try (Stream<Account> accounts = accountApiClient.streamAllAccounts()) {
+            accountIds = accounts.limit(250).map(Account::getId).collect(Collectors.toList());
+        }
+
+        // sent concurrently, so that most lookups end up in the same batch and are answered by one scan
+        List<CompletableFuture<List<Relationship>>> batchedRelationships = accountIds.stream()
+                .map(batchingRelationshipApiClient::getRelationshipsByMemberIdAsync)
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(batchedRelationships.toArray(new CompletableFuture[0])).join();
+
+        assertTrue("Fewer requests than lookups, was " + requestCount.get(), requestCount.get() < accountIds.size());
+        MetricsSnapshot metrics = countingApiClient.getMetrics().snapshot();
+        assertNotNull("Lookups answered by a scan", metrics.getQuery("relationships", "objectType"));
+        QueryStats pointLookups = metrics.getQuery("relationships", "memberId");
+        assertTrue("Fewer point lookups than lookups",
+                pointLookups == null || pointLookups.getRequestCount() < accountIds.size());
+        for (int i = 0; i < Math.min(40, accountIds.size()); i++) {
+            assertEquals("Relationships for member " + accountIds.get(i),
+                    new HashSet<>(relationshipApiClient.getRelationshipsByMemberId(accountIds.get(i))),
+                    new HashSet<>(batchedRelationships.get(i).join()));
+        }
+    }
+
+    @Test
+    public void snapshotFileRoundTripsApiRecords() throws IOException {
+        assertTrue(serverUp);
+
+        Path snapshotPath = Files.createTempFile("kodtest-snapshot", ".bin");
+        try {
+            Files.delete(snapshotPath);
+            DatasetSnapshot fetchedSnapshot = SnapshotFile.loadOrFetch(snapshotPath, accountApiClient, groupApiClient,
+                    relationshipApiClient, Duration.ofHours(1));
+            DatasetSnapshot loadedSnapshot = SnapshotFile.read(snapshotPath);
+
+            assertTrue("Loaded snapshot is fresh",
+                    loadedSnapshot.isFresh(accountApiClient, groupApiClient, relationshipApiClient, Duration.ofHours(1)));
+            assertSameAccountFields(fetchedSnapshot.getAccounts(), loadedSnapshot.getAccounts());
+            assertSameGroupFields(fetchedSnapshot.getGroups(), loadedSnapshot.getGroups());
+            assertSameRelationshipFields(fetchedSnapshot.getRelationships(), loadedSnapshot.getRelationships());
+            assertEquals("Interim staff via snapshot match interim staff via API",
+                    new GroupMemberAccountResolver(relationshipApiClient, groupApiClient).getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF),
+                    new GroupMemberAccountResolver(new RelationshipGraph(loadedSnapshot.getRelationships()), groupApiClient)
+                            .getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF));
+        } finally {
+            Files.deleteIfExists(snapshotPath);
+        }
+    }
+
+    @Test
+    public void snapshotFileRemovesTemporaryFileWhenReplacingFails() throws IOException {
+        Path snapshotDirectory = Files.createTempDirectory("kodtest-snapshot");
+        // a non-empty directory cannot be replaced by the snapshot file
+        Path snapshotPath = Files.createDirectory(snapshotDirectory.resolve("snapshot.bin"));
+        Path blockingFile = Files.createFile(snapshotPath.resolve("blocking"));
+        try {
+            DatasetSnapshot snapshot = new DatasetSnapshot(Instant.now(),
+                    List.of(new Account("acc1", "Vera", "Scope", 100, "SEK", 0, true)), List.of(), List.of());
+            try {
+                SnapshotFile.write(snapshot, snapshotPath);
+                fail("Replacing a non-empty directory fails");
+            } catch (SnapshotException e) {
+                assertFalse("Temporary file removed", Files.exists(snapshotDirectory.resolve("snapshot.bin.tmp")));
+            }
+        } finally {
+            Files.delete(blockingFile);
+            Files.delete(snapshotPath);
+            Files.deleteIfExists(snapshotDirectory.resolve("snapshot.bin.tmp"));
+            Files.delete(snapshotDirectory);
+        }
+    }
+
+    /**
+     * Compares every field, as {@link Account#equals(Object)} only compares IDs.
+     */
+    private static void assertSameAccountFields(List<Account> expected, List<Account> actual) {
+        assertEquals("Number of accounts", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Account expectedAccount = expected.get(i);
+            Account actualAccount = actual.get(i);
+            String id = expectedAccount.getId();
+            assertEquals("Account ID", id, actualAccount.getId());
+            assertEquals("First name of " + id, expectedAccount.getFirstName(), actualAccount.getFirstName());
+            assertEquals("Last name of " + id, expectedAccount.getLastName(), actualAccount.getLastName());
+            assertEquals("Salary of " + id, expectedAccount.getSalary(), actualAccount.getSalary());
+            assertEquals("Salary currency of " + id, expectedAccount.getSalaryCurrency(), actualAccount.getSalaryCurrency());
+            assertEquals("Employed since of " + id, expectedAccount.getEmployedSince(), actualAccount.getEmployedSince());
+            assertEquals("Active of " + id, expectedAccount.isActive(), actualAccount.isActive());
+        }
+    }
+
+    /**
+     * Compares every field, as {@link Group#equals(Object)} only compares IDs.
+     */
+    private static void assertSameGroupFields(List<Group> expected, List<Group> actual) {
+        assertEquals("Number of groups", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String id = expected.get(i).getId();
+            assertEquals("Group ID", id, actual.get(i).getId());
+            assertEquals("Name of " + id, expected.get(i).getName(), actual.get(i).getName());
+            assertEquals("Active of " + id, expected.get(i).isActive(), actual.get(i).isActive());
+        }
+    }
+
+    /**
+     * Compares every field, as {@link Relationship#equals(Object)} only compares IDs.
+     */
+    private static void assertSameRelationshipFields(List<Relationship> expected, List<Relationship> actual) {
+        assertEquals("Number of relationships", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Relationship expectedRelationship = expected.get(i);
+            Relationship actualRelationship = actual.get(i);
+            String id = expectedRelationship.getId();
+            assertEquals("Relationship ID", id, actualRelationship.getId());
+            assertEquals("Group ID of " + id, expectedRelationship.getGroupId(), actualRelationship.getGroupId());
+            assertEquals("Member ID of " + id, expectedRelationship.getMemberId(), actualRelationship.getMemberId());
+            assertEquals("Account ID of " + id, expectedRelationship.getAccountId(), actualRelationship.getAccountId());
+            assertEquals("Managed ID of " + id, expectedRelationship.getManagedId(), actualRelationship.getManagedId());
+        }
+    }
+
+    @Test
+    public void datasetSyncFindsNoChangesInUnchangedApi() {
+        assertTrue(serverUp);
+
+        try (DatasetSync datasetSync = new DatasetSync(accountApiClient, groupApiClient, relationshipApiClient, 3)) {
+            DatasetSnapshot snapshot = datasetSync.getSnapshot();
+            assertEquals("Number of synced accounts", accountApiClient.countAccounts(), snapshot.getAccounts().size());
+            assertEquals("Number of synced relationships", relationshipApiClient.countRelationships(), snapshot.getRelationships().size());
+
+            AccountTable accountTable = datasetSync.getAccountTable();
+            assertEquals("Number of accounts in table", snapshot.getAccounts().size(), accountTable.size());
+
+            assertFalse("Second sync finds no changes", datasetSync.sync());
+            assertSame("Unchanged sync keeps the published snapshot", snapshot, datasetSync.getSnapshot());
+            assertSame("Unchanged sync keeps the published account table", accountTable, datasetSync.getAccountTable());
+        }
+    }
+
+    @Test
+    public void syncedResolverResolvesLikeResolver() {
+        assertTrue(serverUp);
+
+        try (DatasetSync datasetSync = new DatasetSync(accountApiClient, groupApiClient, relationshipApiClient, 3);
+             MemoizingGroupResolver memoizingGroupResolver = MemoizingGroupResolver.fromSync(datasetSync)) {
+            DatasetSync.DatasetVersion version = datasetSync.getVersion();
+            assertSame("Version holds the published snapshot", datasetSync.getSnapshot(), version.getSnapshot());
+            assertSame("Version holds the published graph", datasetSync.getRelationshipGraph(), version.getRelationshipGraph());
+
+            assertEquals("Interim staff via synced resolver match resolver",
+                    new GroupMemberAccountResolver(version.getRelationshipGraph(), groupApiClient).getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF),
+                    memoizingGroupResolver.getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF));
+        }
+    }
+
+    @Test
+    public void accountTableAggregatesLikeHelpers() {
+        assertTrue(serverUp);
+
+        List<Account> allAccounts = accountApiClient.getAllAccounts();
+        AccountTable accountTable = new AccountTable(allAccounts);
+        LocalDate employmentStartDate = LocalDate.of(2019, 1, 1);
+        LocalDate employmentEndDate = LocalDate.of(2022, 12, 31);
+
+        List<Account> employedAccounts = AccountHelper.filterAccountsByEmploymentDate(allAccounts, employmentStartDate, employmentEndDate);
+        BitSet employedRows = accountTable.selectEmployedBetween(employmentStartDate, employmentEndDate);
+        assertEquals("Number of accounts employed in range", employedAccounts.size(), employedRows.cardinality());
+        assertEquals("Total salary of accounts employed in range",
+                SalaryHelper.calculateTotalSalaryInSEK(employedAccounts), accountTable.sumSalaryInSEK(employedRows), 0.001);
+    }
+
+    @Test
+    public void parallelTraversalResolvesLikeSequential() {
+        assertTrue(serverUp);
+
+        try (GroupMemberAccountResolver parallelResolver = new GroupMemberAccountResolver(relationshipApiClient, groupApiClient, 8)) {
+            assertEquals("Swedish staff via parallel traversal match sequential traversal",
+                    new GroupMemberAccountResolver(relationshipApiClient, groupApiClient).getAccountIdsForGroup(GROUP_ID_SWEDEN),
+                    parallelResolver.getAccountIdsForGroup(GROUP_ID_SWEDEN));
+        }
+    }
+
+    @Test
+    public void memoizingResolverResolvesLikeResolvers() {
+        assertTrue(serverUp);
+
+        RelationshipGraph relationshipGraph = RelationshipGraph.load(relationshipApiClient);
+        MemoizingGroupResolver memoizingGroupResolver = MemoizingGroupResolver.load(relationshipGraph, groupApiClient);
+        Account accountForVera = accountApiClient.getAccountsByEmployeeId(VERAS_EMPLOYEE_ID).iterator().next();
+
+        assertEquals("Groups for Vera via memoizing resolver match resolver",
+                new GroupAssociationResolver(relationshipGraph, groupApiClient).getIdsForMembersDirectAndIndirectGroups(accountForVera.getId()),
+                memoizingGroupResolver.getIdsForMembersDirectAndIndirectGroups(accountForVera.getId()));
+        assertEquals("Interim staff via memoizing resolver match resolver",
+                new GroupMemberAccountResolver(relationshipGraph, groupApiClient).getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF),
+                memoizingGroupResolver.getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF));
+    }
+
+    @Test
+    public void bulkResolutionMatchesSingleQueries() {
+        assertTrue(serverUp);
+
+        RelationshipGraph relationshipGraph = RelationshipGraph.load(relationshipApiClient);
+        MemoizingGroupResolver memoizingGroupResolver = MemoizingGroupResolver.load(relationshipGraph, groupApiClient);
+        Account accountForVera = accountApiClient.getAccountsByEmployeeId(VERAS_EMPLOYEE_ID).iterator().next();
+
+        Map<String, Set<String>> groupIdsByAccountId = memoizingGroupResolver.getGroupIdsByAccountId();
+        Map<String, Set<String>> accountIdsByGroupId = memoizingGroupResolver.getAccountIdsByGroupId();
+
+        assertEquals("Groups for Vera in bulk match single query",
+                new GroupAssociationResolver(relationshipGraph, groupApiClient).getIdsForMembersDirectAndIndirectGroups(accountForVera.getId()),
+                groupIdsByAccountId.get(accountForVera.getId()));
+        assertEquals("Interim staff in bulk match single query",
+                new GroupMemberAccountResolver(relationshipGraph, groupApiClient).getAccountIdsForGroup(GROUP_ID_INTERIM_STAFF),
+                accountIdsByGroupId.get(GROUP_ID_INTERIM_STAFF));
+    }
+
+    @Test
+    public void managerIndexMatchesManagerLookups() {
+        assertTrue(serverUp);
+
+        ManagerIndex managerIndex = ManagerIndex.load(relationshipApiClient);
+        Account accountForVera = accountApiClient.getAccountsByEmployeeId(VERAS_EMPLOYEE_ID).iterator().next();
+
+        String managerIdForVera = managerIndex.getManagerId(accountForVera.getId());
+        assertEquals("Manager for Vera via index match lookup",
+                relationshipApiClient.getRelationshipsByManagedId(accountForVera.getId()).getAccountId(), managerIdForVera);
+        assertTrue("Vera is a direct report of her manager", managerIndex.getDirectReportIds(managerIdForVera).contains(accountForVera.getId()));
+        assertEquals("Chain of command starts with the manager", managerIdForVera, managerIndex.getChainOfCommand(accountForVera.getId()).get(0));
+        assertTrue("Span of control includes direct reports",
+                managerIndex.getSpanOfControl(managerIdForVera) >= managerIndex.getDirectReportIds(managerIdForVera).size());
+    }
+
+    @Test
+    public void apiClientConfigRaisesConcurrencyLimits() {
+        assertTrue(serverUp);
+
+        assertEquals("Dispatcher allows the configured requests per host",
+                API_CLIENT_CONFIG.getMaxRequestsPerHost(), apiClient.getMaxConcurrentRequests());
+        assertEquals("Pages fetched with the configured parallelism",
+                API_CLIENT_CONFIG.getPageFetchParallelism(), apiClient.getPageFetchParallelism());
+        assertTrue("Latency preset lifts OkHttp's default of 5 requests per host",
+                ApiClientConfig.latency().getMaxRequestsPerHost() > ApiClientConfig.defaults().getMaxRequestsPerHost());
+        assertEquals("All accounts found with the configured client", accountApiClient.countAccounts(),
+                accountApiClient.getAllAccounts().size());
+    }
+
+    @Test
+    public void apiMetricsRecordRequestsPerQuery() {
+        assertTrue(serverUp);
+
+        accountApiClient.countAccounts();
+        MetricsSnapshot snapshot = apiClient.getMetrics().snapshot();
+        QueryStats accountScans = snapshot.getQuery("accounts", null);
+
+        assertNotNull("Metrics recorded for unfiltered account queries", accountScans);
+        assertTrue("Requests counted", accountScans.getRequestCount() >= 1);
+        assertTrue("Retries never exceed 429 responses", accountScans.getRetryCount() <= accountScans.getThrottledCount());
+        assertTrue("Network latency recorded", accountScans.getNetworkNanos().getCount() >= 1);
+        assertTrue("Body bytes counted", accountScans.getBytesRead() > 0);
+        assertTrue("Percentiles are ordered", accountScans.getParseNanos().getValueAtPercentile(50)
+                <= accountScans.getParseNanos().getValueAtPercentile(99));
+    }
+
+    @Test
+    public void tracedResolverRecordsTraversalTree() {
+        assertTrue(serverUp);
+
+        Set<String> untracedAccountIds = new GroupMemberAccountResolver(relationshipApiClient, groupApiClient)
+                .getAccountIdsForGroup(GROUP_ID_SWEDEN);
+
+        // a client without a cache, so that every traced lookup fetches pages from the API
+        ApiClient uncachedApiClient = new ApiClient(getHttpClientBuilder().build(), apiBaseUrl, tokenProvider, API_CLIENT_CONFIG);
+        TracingRelationshipLookup tracingLookup = new TracingRelationshipLookup(new RelationshipApiClient(uncachedApiClient));
+        GroupMemberAccountResolver resolver = new GroupMemberAccountResolver(tracingLookup, groupApiClient);
+
+        tracingLookup.startTrace("accounts of " + GROUP_ID_SWEDEN);
+        Set<String> accountIds = resolver.getAccountIdsForGroup(GROUP_ID_SWEDEN);
+        QueryTrace trace = tracingLookup.stopTrace();
+
+        assertEquals("Tracing does not change the result", untracedAccountIds, accountIds);
+        assertEquals("One root lookup", 1, trace.getRoots().size());
+        TraceNode root = trace.getRoots().get(0);
+        assertEquals("Root is the queried group", GROUP_ID_SWEDEN, root.getId());
+        assertTrue("Root lookup fetches pages", root.getPageCount() >= 1);
+        for (TraceNode node : trace.getNodes()) {
+            assertTrue("Uncached lookup of " + node.getId() + " fetches pages", node.getPageCount() >= 1);
+            assertEquals("Uncached lookup of " + node.getId() + " has no cache hits", 0, node.getCacheHitCount());
+        }
+        assertEquals("Every lookup is counted in a level", trace.getNodes().size(),
+                trace.getLevels().stream().mapToInt(LevelStats::getLookupCount).sum());
+        assertTrue("Summary names the query", trace.getSummary().startsWith("accounts of " + GROUP_ID_SWEDEN));
+
+        // a fresh caching client, warmed by one traced run, answers the second one from its cache
+        CachingApiClient cachingApiClient = new CachingApiClient(getHttpClientBuilder().build(), apiBaseUrl, tokenProvider,
+                API_CLIENT_CONFIG);
+        TracingRelationshipLookup cachedTracingLookup = new TracingRelationshipLookup(new RelationshipApiClient(cachingApiClient));
+        GroupMemberAccountResolver cachedResolver = new GroupMemberAccountResolver(cachedTracingLookup, groupApiClient);
+        cachedTracingLookup.startTrace("first run");
+        cachedResolver.getAccountIdsForGroup(GROUP_ID_SWEDEN);
+        assertTrue("First run fetches pages", cachedTracingLookup.stopTrace().getRoots().get(0).getPageCount() >= 1);
+
+        cachedTracingLookup.startTrace("second run");
+        cachedResolver.getAccountIdsForGroup(GROUP_ID_SWEDEN);
+        QueryTrace cachedTrace = cachedTracingLookup.stopTrace();
+        for (TraceNode node : cachedTrace.getNodes()) {
+            assertEquals("Cached lookup of " + node.getId() + " fetches no pages", 0, node.getPageCount());
+            assertEquals("Cached lookup of " + node.getId() + " is a cache hit", 1, node.getCacheHitCount());
+        }
+    }
+
+    @Test
+    public void tokenProviderSharesOneAuthenticationBetweenConcurrentCallers() {
+        assertTrue(serverUp);
+
+        AuthenticationApiClient authenticationApiClient = new AuthenticationApiClient(getHttpClientBuilder().build(), API_PORT);
+        AtomicInteger authenticationCount = new AtomicInteger();
+        TokenProvider tokenProvider = new TokenProvider(() -> {
+            authenticationCount.incrementAndGet();
+            return authenticationApiClient.authenticate(API_USER, API_PASSWORD);
+        }, TOKEN_LIFETIME, Duration.ofMinutes(1));
+
+        List<CompletableFuture<String>> tokens = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tokens.add(CompletableFuture.supplyAsync(tokenProvider::getToken));
+        }
+        Set<String> distinctTokens = tokens.stream().map(CompletableFuture::join).collect(Collectors.toSet());
+
+        assertEquals("All callers get the same token", 1, distinctTokens.size());
+        assertEquals("One authentication for all callers", 1, authenticationCount.get());
+        assertNotNull("A rejected token is renewed", tokenProvider.refreshAfterRejection(distinctTokens.iterator().next()));
+        assertEquals("One more authentication for the renewal", 2, authenticationCount.get());
+    }
+
+    @Test
+    public void bearerTokenInterceptorClosesRejectedResponseWhenRenewalFails() {
+        AtomicInteger authenticationCount = new AtomicInteger();
+        TokenProvider tokenProvider = new TokenProvider(() -> {
+            if (authenticationCount.incrementAndGet() > 1) {
+                throw new AuthenticationApiClientException("Authentication failed");
+            }
+            return "rejected-token";
+        }, Duration.ofMinutes(10), Duration.ofMinutes(1));
+        AtomicBoolean rejectedResponseClosed = new AtomicBoolean();
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(new BearerTokenInterceptor(tokenProvider))
+                .addInterceptor(chain -> new Response.Builder()
+                        .request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(401)
+                        .message("Unauthorized")
+                        .body(ResponseBody.create(Okio.buffer(new ForwardingSource(new Buffer()) {
+                            @Override
+                            public void close() throws IOException {
+                                rejectedResponseClosed.set(true);
+                                super.close();
+                            }
+                        }), null, -1L))
+                        .build())
+                .build();
+
+        try (Response response = httpClient.newCall(new Request.Builder().url("http://localhost/accounts").build()).execute()) {
+            fail("Failed renewal is reported, got " + response.code());
+        } catch (IOException e) {
+            assertEquals("Renewal was attempted", 2, authenticationCount.get());
+            assertTrue("Rejected response is closed", rejectedResponseClosed.get());
+        }
+    }
+
+    @Test
+    public void datasetLoaderWarmsUpLikeSeparateLoads() {
+        assertTrue(serverUp);
+
+        DatasetLoader datasetLoader = DatasetLoader.start(accountApiClient, groupApiClient, relationshipApiClient);
+        datasetLoader.getReady().join();
+
+        GroupIndex groupIndex = datasetLoader.getGroupIndex().join();
+        assertEquals("All group IDs", groupApiClient.getAllGroupIds(), groupIndex.getAllGroupIds());
+        assertEquals("Active group IDs", groupApiClient.getGroupIdsForActiveGroups(), groupIndex.getActiveGroupIds());
+        assertEquals("Accounts in table", accountApiClient.countAccounts(), datasetLoader.getAccountTable().join().size());
+        assertEquals("Resolver resolves like the API-backed resolver",
+                new GroupMemberAccountResolver(relationshipApiClient, groupApiClient).getAccountIdsForGroup(GROUP_ID_SWEDEN),
+                datasetLoader.getGroupResolver().join().getAccountIdsForGroup(GROUP_ID_SWEDEN));
+        assertEquals("Preloaded group IDs resolve like lazily loaded ones",
+                new GroupMemberAccountResolver(relationshipApiClient, groupApiClient).getAccountIdsForGroup(GROUP_ID_SALES),
+                new GroupMemberAccountResolver(datasetLoader.getRelationshipGraph().join(), groupIndex, 1)
+                        .getAccountIdsForGroup(GROUP_ID_SALES));
+    }
+
+    @Test
+    public void accountQueryPushesDownMostSelectiveCriterion() {
+        assertTrue(serverUp);
+
+        AccountQuery byName = AccountQuery.where(AccountQuery.Field.ACTIVE, "true")
+                .and(AccountQuery.Field.LAST_NAME, VERAS_LAST_NAME)
+                .and(AccountQuery.Field.FIRST_NAME, VERAS_FIRST_NAME);
+        AccountQueryPlan byNamePlan = accountApiClient.plan(byName);
+        assertEquals(AccountQueryPlan.Strategy.FILTERED_SCAN, byNamePlan.getStrategy());
+        assertEquals(List.of("lastName=" + VERAS_LAST_NAME), byNamePlan.getFilters());
+        assertEquals(AccountQueryPlan.Strategy.FULL_SCAN, accountApiClient.plan(AccountQuery.all()).getStrategy());
+
+        LocalDate employmentStartDate = LocalDate.of(2019, 1, 1);
+        LocalDate employmentEndDate = LocalDate.of(2022, 12, 31);
+        List<Account> allAccounts = accountApiClient.getAllAccounts();
+        Set<String> someAccountIds = allAccounts.stream().limit(5).map(Account::getId).collect(Collectors.toSet());
+        Map<AccountQuery, List<Account>> expectedAccountsByQuery = new LinkedHashMap<>();
+        expectedAccountsByQuery.put(byName, allAccounts.stream()
+                .filter(account -> account.isActive() && VERAS_FIRST_NAME.equals(account.getFirstName())
+                        && VERAS_LAST_NAME.equals(account.getLastName()))
+                .collect(Collectors.toList()));
+        expectedAccountsByQuery.put(AccountQuery.all().activeOnly().employedBetween(employmentStartDate, employmentEndDate),
+                allAccounts.stream()
+                        .filter(account -> account.isActive()
+                                && AccountHelper.isEmployedBetween(account, employmentStartDate, employmentEndDate))
+                        .collect(Collectors.toList()));
+        expectedAccountsByQuery.put(AccountQuery.whereIn(AccountQuery.Field.ID, someAccountIds).activeOnly(),
+                allAccounts.stream()
+                        .filter(account -> someAccountIds.contains(account.getId()) && account.isActive())
+                        .collect(Collectors.toList()));
+
+        for (Map.Entry<AccountQuery, List<Account>> entry : expectedAccountsByQuery.entrySet()) {
+            assertEquals("Accounts for " + entry.getKey(), new HashSet<>(entry.getValue()),
+                    new HashSet<>(accountApiClient.query(entry.getKey())));
+        }
+        assertEquals(AccountQueryPlan.Strategy.POINT_SCANS,
+                accountApiClient.plan(AccountQuery.whereIn(AccountQuery.Field.ID, someAccountIds).activeOnly()).getStrategy());
+    }
+
+    @Test
+    public void rateLimiterIncreasesAdditivelyAndHalvesOncePerCoolDown() {
+        // an arbitrary, negative clock origin, as System.nanoTime() may have
+        AtomicLong nanoTime = new AtomicLong(-5_000_000_000L);
+        RateLimiter rateLimiter = new RateLimiter(100.0, 1.0, 110.0, nanoTime::get);
+
+        rateLimiter.onSuccess();
+        assertEquals("Additive increase", 105.0, rateLimiter.getRate(), 0.0);
+        rateLimiter.onSuccess();
+        rateLimiter.onSuccess();
+        assertEquals("Increase capped at max rate", 110.0, rateLimiter.getRate(), 0.0);
+
+        rateLimiter.onThrottled(0);
+        assertEquals("First 429 halves the rate", 55.0, rateLimiter.getRate(), 0.0);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(199));
+        rateLimiter.onThrottled(0);
+        assertEquals("429 within the cool-down is ignored", 55.0, rateLimiter.getRate(), 0.0);
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        rateLimiter.onThrottled(0);
+        assertEquals("429 after the cool-down halves the rate", 27.5, rateLimiter.getRate(), 0.0);
+
+        for (int i = 0; i < 10; i++) {
+            nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            rateLimiter.onThrottled(0);
+        }
+        assertEquals("Decrease capped at min rate", 1.0, rateLimiter.getRate(), 0.0);
+    }
+
+    @Test
+    public void rateLimiterSpacesRequestsAndPausesForRetryAfter() {
+        AtomicLong nanoTime = new AtomicLong(-5_000_000_000L);
+        RateLimiter rateLimiter = new RateLimiter(10.0, 1.0, 20.0, nanoTime::get);
+
+        assertEquals("First request is sent immediately", 0, rateLimiter.reserve());
+        assertEquals("Next request waits for a token", TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.reserve());
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals("Tokens refill over time", 0, rateLimiter.reserve());
+
+        rateLimiter.onThrottled(500);
+        assertEquals("Rate halved", 5.0, rateLimiter.getRate(), 0.0);
+        assertEquals("Paused for Retry-After", TimeUnit.MILLISECONDS.toNanos(500), rateLimiter.reserve());
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+        assertEquals("Pause counts down", TimeUnit.MILLISECONDS.toNanos(200), rateLimiter.reserve());
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals("Sent immediately after the pause", 0, rateLimiter.reserve());
+    }
+
+    @Test
+    public void backoffPolicyParsesRetryAfter() {
+        Clock clock = Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC);
+        BackoffPolicy backoffPolicy = new BackoffPolicy(10, 2000, clock);
+
+        assertEquals("Delta-seconds", 120_000, backoffPolicy.parseRetryAfterMillis("120"));
+        assertEquals("Delta-seconds with whitespace", 3_000, backoffPolicy.parseRetryAfterMillis(" 3 "));
+        assertEquals("Negative delta-seconds", 0, backoffPolicy.parseRetryAfterMillis("-5"));
+        assertEquals("HTTP date", 30_000, backoffPolicy.parseRetryAfterMillis("Mon, 01 Jan 2024 00:00:30 GMT"));
+        assertEquals("HTTP date in the past", 0, backoffPolicy.parseRetryAfterMillis("Sun, 31 Dec 2023 23:59:00 GMT"));
+        assertEquals("Missing header", 0, backoffPolicy.parseRetryAfterMillis(null));
+        assertEquals("Blank header", 0, backoffPolicy.parseRetryAfterMillis(" "));
+        assertEquals("Invalid header", 0, backoffPolicy.parseRetryAfterMillis("soon"));
+
+        assertEquals("Retry-After overrides backoff", 1_500, backoffPolicy.getDelayMillis(1, 1_500));
+        for (int attempt = 1; attempt <= 12; attempt++) {
+            long delayMillis = backoffPolicy.getDelayMillis(attempt, 0);
+            assertTrue("Delay within jitter bound for attempt " + attempt,
+                    delayMillis >= 0 && delayMillis <= Math.min(2000, 10L << (attempt - 1)));
+        }
+    }
+
+    @Test
+    public void contentRangeParsesItemRanges() {
+        ContentRange page = ContentRange.parse("items 25-49/120");
+        assertNotNull("Range parsed", page);
+        assertEquals(25, page.getFirst());
+        assertEquals(49, page.getLast());
+        assertEquals(120, page.getTotal());
+        assertEquals(25, page.getPageSize());
+        assertEquals(50, page.getNextSkip());
+        assertTrue("More pages after a middle page", page.hasMore());
+        assertEquals("items 25-49/120", page.toString());
+
+        ContentRange lastPage = ContentRange.parse("items 100-119/120");
+        assertNotNull("Last range parsed", lastPage);
+        assertFalse("No pages after the last page", lastPage.hasMore());
+
+        ContentRange emptyPage = ContentRange.parse("items */0");
+        assertNotNull("Empty range parsed", emptyPage);
+        assertTrue("Empty page", emptyPage.isEmpty());
+        assertEquals(0, emptyPage.getTotal());
+        assertEquals(0, emptyPage.getPageSize());
+        assertFalse("No pages after an empty page", emptyPage.hasMore());
+
+        ContentRange maxRange = ContentRange.parse("items 0-2147483646/2147483647");
+        assertNotNull("Range at the int limit parsed", maxRange);
+        assertEquals(Integer.MAX_VALUE, maxRange.getTotal());
+    }
+
+    @Test
+    public void contentRangeRejectsInvalidHeaders() {
+        String[] invalidHeaders = {
+                null, "", "0-24/100", "bytes 0-24/100", "items", "items ", "items 0-24", "items 0-24/",
+                "items -24/100", "items 0-/100", "items 24-0/100", "items 0-24/100 ", "items 0-24/100x",
+                "items */100/", "items * /100", "items 0-24/2147483648", "items 2147483648-2147483649/2147483647",
+                "items 0-99999999999999999999/100"
+        };
+        for (String header : invalidHeaders) {
+            assertNull("Rejected: " + header, ContentRange.parse(header));
+        }
+    }
+
+    @Test
+    public void recordCacheBoundsEmptyResults() {
+        RecordCache<String, List<? extends ApiRecord>> recordCache =
+                CachingApiClient.newRecordCache(Duration.ofMinutes(5), 100);
+
+        for (int i = 0; i < 1000; i++) {
+            recordCache.put("accounts?id=unknown" + i, List.of());
+        }
+
+        assertEquals("Empty results are evicted", 900, recordCache.getStats().getEvictionCount());
+        assertNull("Oldest empty result evicted", recordCache.getIfPresent("accounts?id=unknown0"));
+        assertNotNull("Newest empty result kept", recordCache.getIfPresent("accounts?id=unknown999"));
+    }
+
+    @Test
+    public void accountLookupPlannerRequestsTotalOnlyForLargeLookups() {
+        AtomicInteger totalRequestCount = new AtomicInteger();
+        AccountLookupPlanner planner = new AccountLookupPlanner(() -> {
+            totalRequestCount.incrementAndGet();
+            return CompletableFuture.completedFuture(100);
+        }, 10, 4);
+
+        assertEquals(AccountLookupPlanner.Strategy.POINT_LOOKUPS, planner.chooseStrategy(10));
+        assertEquals("No total requested for few IDs", 0, totalRequestCount.get());
+        assertEquals("All accounts are scanned", AccountLookupPlanner.Strategy.FULL_SCAN, planner.chooseStrategy(100));
+        assertEquals("More IDs than accounts are scanned", AccountLookupPlanner.Strategy.FULL_SCAN, planner.chooseStrategy(150));
+        assertEquals("Total requested once", 1, totalRequestCount.get());
+    }
+
+    @Test
+    public void accountLookupPlannerComparesRoundsAndMeasuredLatencies() {
+        // 1000 accounts are 40 pages, scanned in 1 + ceil(39 / 4) = 11 rounds
+        AccountLookupPlanner planner = new AccountLookupPlanner(() -> CompletableFuture.completedFuture(1000), 10, 4);
+        assertEquals("11 rounds of point lookups", AccountLookupPlanner.Strategy.POINT_LOOKUPS, planner.chooseStrategy(110));
+        assertEquals("12 rounds of point lookups", AccountLookupPlanner.Strategy.FULL_SCAN, planner.chooseStrategy(111));
+
+        planner.recordPointLookups(10, 1000);
+        planner.recordFullScan(1000, 3000);
+        assertEquals("3 rounds take as long as a scan", AccountLookupPlanner.Strategy.POINT_LOOKUPS, planner.chooseStrategy(30));
+        assertEquals("4 rounds take longer than a scan", AccountLookupPlanner.Strategy.FULL_SCAN, planner.chooseStrategy(31));
+
+        // smoothed scan time 3000 + 0.3 * (13000 - 3000) = 6000
+        planner.recordFullScan(1000, 13000);
+        assertEquals("6 rounds take as long as a scan", AccountLookupPlanner.Strategy.POINT_LOOKUPS, planner.chooseStrategy(60));
+        assertEquals("7 rounds take longer than a scan", AccountLookupPlanner.Strategy.FULL_SCAN, planner.chooseStrategy(61));
+    }
+
+    @Test
+    public void accountLookupPlannerSharesAndRetriesTotalRequest() {
+        AtomicInteger totalRequestCount = new AtomicInteger();
+        List<CompletableFuture<Integer>> totalRequests = List.of(
+                CompletableFuture.failedFuture(new ApiClientException("Count failed")), new CompletableFuture<>());
+        AccountLookupPlanner planner = new AccountLookupPlanner(
+                () -> totalRequests.get(totalRequestCount.getAndIncrement()), 10, 4);
+
+        try {
+            planner.chooseStrategy(50);
+            fail("Failed total request is reported");
+        } catch (ApiClientException e) {
+            assertEquals("Count failed", e.getMessage());
+        }
+
+        CompletableFuture<AccountLookupPlanner.Strategy> firstChoice = planner.chooseStrategyAsync(50);
+        CompletableFuture<AccountLookupPlanner.Strategy> secondChoice = planner.chooseStrategyAsync(5000);
+        assertFalse("Choice waits for the total", firstChoice.isDone());
+        assertEquals("Failed request is retried once and shared", 2, totalRequestCount.get());
+
+        totalRequests.get(1).complete(1000);
+        assertEquals(AccountLookupPlanner.Strategy.POINT_LOOKUPS, firstChoice.join());
+        assertEquals(AccountLookupPlanner.Strategy.FULL_SCAN, secondChoice.join());
+        assertEquals("Known total is not requested again", AccountLookupPlanner.Strategy.POINT_LOOKUPS, planner.chooseStrategy(50));
+        assertEquals(2, totalRequestCount.get());
+    }
+
+    @Test
+    public void recordCacheReportsOnlyCachedValuesAsHits() throws InterruptedException {
+        RecordCache<String, List<? extends ApiRecord>> recordCache =
+                CachingApiClient.newRecordCache(Duration.ofMinutes(5), 100);
+        AtomicInteger hitCount = new AtomicInteger();
+        CompletableFuture<Void> loadStarted = new CompletableFuture<>();
+        CompletableFuture<Void> loadReleased = new CompletableFuture<>();
+
+        Thread loadingThread = new Thread(() -> recordCache.get("accounts?id=acc1", key -> {
+            loadStarted.complete(null);
+            loadReleased.join();
+            return List.of();
+        }, hitCount::incrementAndGet));
+        loadingThread.start();
+        loadStarted.join();
+        Thread waitingThread = new Thread(() -> recordCache.get("accounts?id=acc1", key -> List.of(),
+                hitCount::incrementAndGet));
+        waitingThread.start();
+        while (waitingThread.getState() != Thread.State.WAITING && waitingThread.isAlive()) {
+            Thread.sleep(1);
+        }
+        loadReleased.complete(null);
+        loadingThread.join();
+        waitingThread.join();
+        assertEquals("Loading and waiting for a load are not hits", 0, hitCount.get());
+
+        recordCache.get("accounts?id=acc1", key -> List.of(), hitCount::incrementAndGet);
+        assertEquals("Cached value is a hit", 1, hitCount.get());
+        assertEquals("Hits reported like the cache statistics", recordCache.getStats().getHitCount(), hitCount.get());
+    }
 }
@@ -3,9 +3,18 @@ package com.infrasight.kodtest.api.client;
 import com.infrasight.kodtest.api.model.Account;
 import com.infrasight.kodtest.exception.AccountApiClientException;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * API client for fetching Account-related data from the API.
@@ -15,11 +24,35 @@ public class AccountApiClient {
     private static final String PARAM_EMPLOYEE_ID = "employeeId";
     private static final String PARAM_ID = "id";
     private static final String PARAM_FIRST_NAME = "firstName";
+    private static final int MAX_BATCH_SIZE = 250;
 
     private final ApiClient apiClient;
+    private final AccountLookupPlanner lookupPlanner;
+    private final AccountQueryPlanner queryPlanner;
+    private final BatchLoader<String, List<Account>> accountsByIdLoader;
 
     public AccountApiClient(ApiClient apiClient) {
+        this(apiClient, Duration.ZERO);
+    }
+
+    /**
+     * Creates an account API client which batches concurrent lookups by account ID.
+     * <p>
+     * Lookups that arrive within the batch window are deduplicated and fetched together, either with one point
+     * lookup per distinct ID or with a single scan of all accounts, as chosen by {@link AccountLookupPlanner}.
+     * </p>
+     *
+     * @param apiClient   The API client used for all requests.
+     * @param batchWindow The time to collect lookups by account ID before fetching them. Zero disables batching.
+     */
+    public AccountApiClient(ApiClient apiClient, Duration batchWindow) {
         this.apiClient = apiClient;
+        this.lookupPlanner = new AccountLookupPlanner(() -> apiClient.countRecordsAsync(ENDPOINT, Account.class, null),
+                apiClient.getMaxConcurrentRequests(), apiClient.getPageFetchParallelism());
+        this.queryPlanner = new AccountQueryPlanner(lookupPlanner);
+        this.accountsByIdLoader = batchWindow.isZero()
+                ? null
+                : new BatchLoader<>(this::loadAccountsByIds, batchWindow, MAX_BATCH_SIZE);
     }
 
     /**
@@ -40,13 +73,11 @@ public class AccountApiClient {
      * @throws AccountApiClientException If none or multiple accounts are found.
      */
     public Account getAccountById(String accountId) {
-        List<Account> accounts = apiClient.getRecords(ENDPOINT, Account.class, String.format("%s=%s", PARAM_ID, accountId));
-        if (accounts.isEmpty()) {
-            throw new AccountApiClientException(String.format("No Account found for accountId %s", accountId));
-        } else if (accounts.size() > 1) {
-            throw new AccountApiClientException(String.format("Multiple Accounts found for accountId %s", accountId));
+        if (accountsByIdLoader != null) {
+            return join(getAccountByIdAsync(accountId));
         }
-        return accounts.get(0);
+        List<Account> accounts = apiClient.getRecords(ENDPOINT, Account.class, String.format("%s=%s", PARAM_ID, accountId));
+        return requireSingleAccount(accounts, accountId);
     }
 
     /**
@@ -60,21 +91,284 @@ public class AccountApiClient {
         return apiClient.getRecords(ENDPOINT, Account.class, String.format("%s=%s", PARAM_FIRST_NAME, firstName));
     }
 
+    /**
+     * Retrieves all accounts.
+     *
+     * @return A list of all {@link Account} objects.
+     */
+    public List<Account> getAllAccounts() {
+        return apiClient.getRecords(ENDPOINT, Account.class, null);
+    }
+
+    /**
+     * Asynchronously retrieves all accounts, requesting all pages after the first concurrently.
+     *
+     * @return A future completed with a list of all {@link Account} objects.
+     */
+    public CompletableFuture<List<Account>> getAllAccountsAsync() {
+        return apiClient.getRecordsAsync(ENDPOINT, Account.class, null);
+    }
+
+    /**
+     * Streams all accounts lazily, fetching each page only when the previous one has been consumed.
+     * The stream should be closed if it is not consumed to the end.
+     *
+     * @return A lazy stream of all {@link Account} objects.
+     */
+    public Stream<Account> streamAllAccounts() {
+        return apiClient.streamRecords(ENDPOINT, Account.class, null);
+    }
+
+    /**
+     * Creates a sync which keeps a local copy of all accounts up to date, see {@link EndpointSync}.
+     *
+     * @param pagesPerSync The number of pages fetched by each sync that finds an unchanged total.
+     * @return A new sync, which has not fetched anything yet.
+     */
+    public EndpointSync<Account> newSync(int pagesPerSync) {
+        return new EndpointSync<>(apiClient, ENDPOINT, Account.class, pagesPerSync);
+    }
+
+    /**
+     * Retrieves the total number of accounts, with a single request.
+     *
+     * @return The number of accounts reported by the API.
+     */
+    public int countAccounts() {
+        return apiClient.countRecords(ENDPOINT, Account.class, null);
+    }
+
     /**
      * Retrieves active accounts from the provided set of account IDs.
+     * <p>
+     * Small sets are fetched with concurrent point lookups, while large sets are fetched with a single scan of all
+     * accounts that is joined against the wanted IDs. The strategy is chosen by {@link AccountLookupPlanner}. With
+     * batching enabled, the IDs go through the batch loader, which plans and times each batch itself.
+     * </p>
      *
      * @param accountIds A set of account IDs to retrieve and filter.
      * @return A list of active {@link Account} objects corresponding to the provided IDs.
      * @throws AccountApiClientException If none or multiple accounts are found.
      */
     public List<Account> getActiveAccountsByIds(Set<String> accountIds) {
+        if (accountsByIdLoader != null) {
+            return join(getActiveAccountsByIdsAsync(accountIds));
+        }
+
+        long start = System.nanoTime();
+        if (lookupPlanner.chooseStrategy(accountIds.size()) == AccountLookupPlanner.Strategy.FULL_SCAN) {
+            List<Account> allAccounts = apiClient.getRecords(ENDPOINT, Account.class, null);
+            lookupPlanner.recordFullScan(allAccounts.size(), System.nanoTime() - start);
+            return joinActiveAccounts(allAccounts, accountIds);
+        }
+
+        List<Account> accounts = join(getActiveAccountsByIdsAsync(accountIds));
+        lookupPlanner.recordPointLookups(accountIds.size(), System.nanoTime() - start);
+        return accounts;
+    }
+
+    /**
+     * Retrieves the accounts matching all criteria of a query.
+     * <p>
+     * The most selective criterion is sent to the API as the filter, as chosen by {@link AccountQueryPlanner}, and
+     * the remaining criteria are evaluated on each account as it is decoded, so accounts that do not match are never
+     * collected. A criterion with several values may be sent as one concurrent scan per value. The wall time of
+     * point scans and full scans is recorded with the {@link AccountLookupPlanner}, like for lookups by account ID.
+     * </p>
+     *
+     * @param query The query to run.
+     * @return The matching {@link Account} objects, in the order the API returns them.
+     */
+    public List<Account> query(AccountQuery query) {
+        AccountQueryPlan plan = queryPlanner.plan(query);
+        Predicate<Account> residualPredicate = plan.getResidualPredicate();
+        long start = System.nanoTime();
+        if (plan.getStrategy() == AccountQueryPlan.Strategy.POINT_SCANS) {
+            List<CompletableFuture<List<Account>>> pendingScans = plan.getFilters().stream()
+                    .map(filter -> apiClient.getRecordsAsync(ENDPOINT, Account.class, filter))
+                    .collect(Collectors.toList());
+            List<Account> accounts = join(CompletableFuture.allOf(pendingScans.toArray(new CompletableFuture[0]))
+                    .thenApply(ignored -> pendingScans.stream()
+                            .flatMap(pendingScan -> pendingScan.join().stream())
+                            .filter(residualPredicate)
+                            .collect(Collectors.toList())));
+            lookupPlanner.recordPointLookups(pendingScans.size(), System.nanoTime() - start);
+            return accounts;
+        }
+
+        String filter = plan.getFilters().isEmpty() ? null : plan.getFilters().get(0);
+        List<Account> accounts = new ArrayList<>();
+        AtomicInteger scannedAccounts = new AtomicInteger();
+        apiClient.forEachRecord(ENDPOINT, Account.class, filter, account -> {
+            scannedAccounts.incrementAndGet();
+            if (residualPredicate.test(account)) {
+                accounts.add(account);
+            }
+        });
+        if (plan.getStrategy() == AccountQueryPlan.Strategy.FULL_SCAN) {
+            lookupPlanner.recordFullScan(scannedAccounts.get(), System.nanoTime() - start);
+        }
+        return accounts;
+    }
+
+    /**
+     * Plans a query without running it.
+     * <p>
+     * Planning a criterion with more than 10 values compares point scans with a full scan, which needs the total
+     * number of accounts. The first such plan therefore blocks on a count request, unless the total is already known
+     * from an earlier plan, lookup or full scan.
+     * </p>
+     *
+     * @param query The query to plan.
+     * @return The plan {@link #query(AccountQuery)} would use.
+     */
+    public AccountQueryPlan plan(AccountQuery query) {
+        return queryPlanner.plan(query);
+    }
+
+    /**
+     * Hash-joins scanned accounts against the wanted account IDs.
+     *
+     * @param scannedAccounts The accounts returned by a scan.
+     * @param accountIds      The wanted account IDs.
+     * @return The active accounts among the wanted IDs, in the iteration order of {@code accountIds}.
+     * @throws AccountApiClientException If none or multiple accounts are found for a wanted ID.
+     */
+    private List<Account> joinActiveAccounts(List<Account> scannedAccounts, Set<String> accountIds) {
+        Map<String, Account> wantedAccounts = new HashMap<>();
+        for (Account account : scannedAccounts) {
+            if (accountIds.contains(account.getId()) && wantedAccounts.put(account.getId(), account) != null) {
+                throw new AccountApiClientException(String.format("Multiple Accounts found for accountId %s", account.getId()));
+            }
+        }
+
         List<Account> accounts = new ArrayList<>();
         for (String accountId : accountIds) {
-            Account account = getAccountById(accountId);
+            Account account = wantedAccounts.get(accountId);
+            if (account == null) {
+                throw new AccountApiClientException(String.format("No Account found for accountId %s", accountId));
+            }
             if (account.isActive()) {
                 accounts.add(account);
             }
         }
         return accounts;
     }
+
+    /**
+     * Asynchronously retrieves accounts associated with a given employee ID.
+     *
+     * @param employeeId The unique identifier of the employee whose accounts are to be retrieved.
+     * @return A future completed with the {@link Account} objects associated with the given employee ID.
+     */
+    public CompletableFuture<List<Account>> getAccountsByEmployeeIdAsync(String employeeId) {
+        return apiClient.getRecordsAsync(ENDPOINT, Account.class, String.format("%s=%s", PARAM_EMPLOYEE_ID, employeeId));
+    }
+
+    /**
+     * Asynchronously retrieves an account by ID.
+     *
+     * @param accountId The unique identifier of the account to retrieve.
+     * @return A future completed with the {@link Account} corresponding to the given account ID, or completed
+     * exceptionally with an {@link AccountApiClientException} if none or multiple accounts are found.
+     */
+    public CompletableFuture<Account> getAccountByIdAsync(String accountId) {
+        if (accountsByIdLoader != null) {
+            return accountsByIdLoader.load(accountId)
+                    .thenApply(accounts -> requireSingleAccount(accounts == null ? List.of() : accounts, accountId));
+        }
+        return apiClient.getRecordsAsync(ENDPOINT, Account.class, String.format("%s=%s", PARAM_ID, accountId))
+                .thenApply(accounts -> requireSingleAccount(accounts, accountId));
+    }
+
+    /**
+     * Asynchronously retrieves accounts matching the specified first name.
+     *
+     * @param firstName The first name used to filter the accounts.
+     * @return A future completed with the {@link Account} objects with the specified first name.
+     */
+    public CompletableFuture<List<Account>> getAccountsByFirstNameAsync(String firstName) {
+        return apiClient.getRecordsAsync(ENDPOINT, Account.class, String.format("%s=%s", PARAM_FIRST_NAME, firstName));
+    }
+
+    /**
+     * Asynchronously retrieves active accounts from the provided set of account IDs. All lookups are sent
+     * concurrently.
+     *
+     * @param accountIds A set of account IDs to retrieve and filter.
+     * @return A future completed with the active {@link Account} objects corresponding to the provided IDs, or
+     * completed exceptionally with an {@link AccountApiClientException} if none or multiple accounts are found for an ID.
+     */
+    public CompletableFuture<List<Account>> getActiveAccountsByIdsAsync(Set<String> accountIds) {
+        List<CompletableFuture<Account>> pendingAccounts = accountIds.stream()
+                .map(this::getAccountByIdAsync)
+                .collect(Collectors.toList());
+
+        return CompletableFuture.allOf(pendingAccounts.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> pendingAccounts.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Account::isActive)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Fetches a batch of distinct account IDs for the {@link BatchLoader}, using the strategy chosen by the
+     * {@link AccountLookupPlanner}.
+     *
+     * @param accountIds The distinct account IDs of the batch.
+     * @return A future completed with the accounts found for each ID.
+     */
+    private CompletableFuture<Map<String, List<Account>>> loadAccountsByIds(Set<String> accountIds) {
+        // runs on the dispatching thread shared by all batch loaders, so the strategy is chosen without blocking
+        return lookupPlanner.chooseStrategyAsync(accountIds.size()).thenCompose(strategy -> {
+            long start = System.nanoTime();
+            if (strategy == AccountLookupPlanner.Strategy.FULL_SCAN) {
+                return apiClient.getRecordsAsync(ENDPOINT, Account.class, null).thenApply(allAccounts -> {
+                    lookupPlanner.recordFullScan(allAccounts.size(), System.nanoTime() - start);
+                    Map<String, List<Account>> accountsById = new HashMap<>();
+                    for (Account account : allAccounts) {
+                        if (accountIds.contains(account.getId())) {
+                            accountsById.computeIfAbsent(account.getId(), id -> new ArrayList<>()).add(account);
+                        }
+                    }
+                    return accountsById;
+                });
+            }
+
+            Map<String, CompletableFuture<List<Account>>> pendingAccounts = new HashMap<>();
+            for (String accountId : accountIds) {
+                pendingAccounts.put(accountId,
+                        apiClient.getRecordsAsync(ENDPOINT, Account.class, String.format("%s=%s", PARAM_ID, accountId)));
+            }
+            return CompletableFuture.allOf(pendingAccounts.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                lookupPlanner.recordPointLookups(accountIds.size(), System.nanoTime() - start);
+                Map<String, List<Account>> accountsById = new HashMap<>();
+                pendingAccounts.forEach((accountId, accounts) -> accountsById.put(accountId, accounts.join()));
+                return accountsById;
+            });
+        });
+    }
+
+    private Account requireSingleAccount(List<Account> accounts, String accountId) {
+        if (accounts.isEmpty()) {
+            throw new AccountApiClientException(String.format("No Account found for accountId %s", accountId));
+        } else if (accounts.size() > 1) {
+            throw new AccountApiClientException(String.format("Multiple Accounts found for accountId %s", accountId));
+        }
+        return accounts.get(0);
+    }
+
+    /**
+     * Waits for a future, rethrowing the exception it completed with rather than a wrapping {@link CompletionException}.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 }
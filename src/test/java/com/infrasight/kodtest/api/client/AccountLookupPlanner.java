@@ -0,0 +1,165 @@
+package com.infrasight.kodtest.api.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Chooses how a set of accounts is fetched by ID: either with one point lookup per ID, sent concurrently, or with a
+ * single full scan of all accounts that is hash-joined against the wanted IDs.
+ * <p>
+ * The choice is based on the number of IDs, the total number of accounts and the latencies measured for earlier
+ * lookups. Until latencies have been measured, a request to the API is assumed to take equally long for both
+ * strategies.
+ * </p>
+ * <p>
+ * The total number of accounts is requested once, asynchronously, the first time it is needed. Concurrent callers
+ * share that request, and no lock is held while it is in flight.
+ * </p>
+ */
+public class AccountLookupPlanner {
+    private static final int POINT_LOOKUP_MAX_IDS = 10;
+    private static final int ESTIMATED_ACCOUNTS_PER_PAGE = 25;
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    public enum Strategy {POINT_LOOKUPS, FULL_SCAN}
+
+    private final Supplier<CompletableFuture<Integer>> totalAccountsLoader;
+    private final int pointLookupConcurrency;
+    private final int scanParallelism;
+
+    private int totalAccounts = -1;
+    private CompletableFuture<Integer> pendingTotalAccounts;
+    private double pointLookupRoundNanos = Double.NaN;
+    private double fullScanNanos = Double.NaN;
+
+    /**
+     * @param totalAccountsLoader    Starts a request for the total number of accounts. Only called until the total
+     *                               is known, and never while another request for it is in flight.
+     * @param pointLookupConcurrency The number of point lookups that are sent concurrently.
+     * @param scanParallelism        The number of pages fetched concurrently during a full scan.
+     */
+    public AccountLookupPlanner(Supplier<CompletableFuture<Integer>> totalAccountsLoader, int pointLookupConcurrency,
+                                int scanParallelism) {
+        this.totalAccountsLoader = totalAccountsLoader;
+        this.pointLookupConcurrency = Math.max(1, pointLookupConcurrency);
+        this.scanParallelism = Math.max(1, scanParallelism);
+    }
+
+    /**
+     * Chooses the cheapest strategy for looking up the given number of account IDs, blocking while the total number
+     * of accounts is requested the first time.
+     *
+     * @param idCount The number of distinct account IDs to look up.
+     * @return The strategy with the lowest estimated wall time.
+     * @throws com.infrasight.kodtest.exception.ApiClientException If the total number of accounts cannot be retrieved.
+     */
+    public Strategy chooseStrategy(int idCount) {
+        try {
+            return chooseStrategyAsync(idCount).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Chooses the cheapest strategy for looking up the given number of account IDs without blocking.
+     *
+     * @param idCount The number of distinct account IDs to look up.
+     * @return A future completed with the strategy with the lowest estimated wall time, or exceptionally if the total
+     * number of accounts cannot be retrieved.
+     */
+    public CompletableFuture<Strategy> chooseStrategyAsync(int idCount) {
+        if (idCount <= POINT_LOOKUP_MAX_IDS) {
+            return CompletableFuture.completedFuture(Strategy.POINT_LOOKUPS);
+        }
+
+        CompletableFuture<Integer> total;
+        synchronized (this) {
+            if (totalAccounts >= 0) {
+                return CompletableFuture.completedFuture(estimateCheapestStrategy(idCount));
+            }
+            if (pendingTotalAccounts == null) {
+                CompletableFuture<Integer> request = totalAccountsLoader.get();
+                pendingTotalAccounts = request;
+                // a failed request is forgotten, so that the next caller retries
+                request.whenComplete((loadedTotal, throwable) -> {
+                    synchronized (this) {
+                        if (throwable == null && totalAccounts < 0) {
+                            totalAccounts = loadedTotal;
+                        }
+                        if (pendingTotalAccounts == request) {
+                            pendingTotalAccounts = null;
+                        }
+                    }
+                });
+                total = request;
+            } else {
+                total = pendingTotalAccounts;
+            }
+        }
+        return total.thenApply(loadedTotal -> {
+            synchronized (this) {
+                if (totalAccounts < 0) {
+                    totalAccounts = loadedTotal;
+                }
+                return estimateCheapestStrategy(idCount);
+            }
+        });
+    }
+
+    /**
+     * Compares the estimated wall times of both strategies. Must be called with the lock held, once the total number
+     * of accounts is known.
+     */
+    private Strategy estimateCheapestStrategy(int idCount) {
+        if (idCount >= totalAccounts) {
+            return Strategy.FULL_SCAN;
+        }
+
+        int pointLookupRounds = ceilDiv(idCount, pointLookupConcurrency);
+        int scanPages = ceilDiv(totalAccounts, ESTIMATED_ACCOUNTS_PER_PAGE);
+        // the first page is fetched alone, the remaining pages in parallel rounds
+        int scanRounds = 1 + ceilDiv(Math.max(0, scanPages - 1), scanParallelism);
+
+        double roundNanos = Double.isNaN(pointLookupRoundNanos) ? 1 : pointLookupRoundNanos;
+        double estimatedPointLookupNanos = pointLookupRounds * roundNanos;
+        double estimatedFullScanNanos = Double.isNaN(fullScanNanos) ? scanRounds * roundNanos : fullScanNanos;
+
+        return estimatedPointLookupNanos <= estimatedFullScanNanos ? Strategy.POINT_LOOKUPS : Strategy.FULL_SCAN;
+    }
+
+    /**
+     * Records the wall time of a completed batch of point lookups.
+     *
+     * @param idCount      The number of IDs looked up.
+     * @param elapsedNanos The wall time of the whole batch.
+     */
+    public synchronized void recordPointLookups(int idCount, long elapsedNanos) {
+        if (idCount == 0) return;
+        double roundNanos = (double) elapsedNanos / ceilDiv(idCount, pointLookupConcurrency);
+        pointLookupRoundNanos = smooth(pointLookupRoundNanos, roundNanos);
+    }
+
+    /**
+     * Records the wall time of a completed full scan.
+     *
+     * @param scannedAccounts The number of accounts returned by the scan.
+     * @param elapsedNanos    The wall time of the scan.
+     */
+    public synchronized void recordFullScan(int scannedAccounts, long elapsedNanos) {
+        totalAccounts = scannedAccounts;
+        fullScanNanos = smooth(fullScanNanos, elapsedNanos);
+    }
+
+    private static double smooth(double average, double sample) {
+        return Double.isNaN(average) ? sample : average + LATENCY_SMOOTHING * (sample - average);
+    }
+
+    private static int ceilDiv(int dividend, int divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+}
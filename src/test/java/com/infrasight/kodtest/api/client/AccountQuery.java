@@ -0,0 +1,233 @@
+package com.infrasight.kodtest.api.client;
+
+import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.helper.AccountHelper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A query for accounts matching several criteria, run with {@link AccountApiClient#query(AccountQuery)}.
+ * <p>
+ * The API only filters on a single field value, so one criterion is sent to the API as the filter and the rest are
+ * evaluated on the returned accounts. Which criterion is sent is chosen by the {@link AccountQueryPlanner}.
+ * </p>
+ * <p>
+ * Instances are immutable. Every method that adds a criterion returns a new query.
+ * </p>
+ */
+public class AccountQuery {
+    private final List<Criterion> criteria;
+    private final LocalDate employedFrom;
+    private final LocalDate employedTo;
+
+    /**
+     * An account field that the API can filter on, with an estimate of the share of all accounts that have any
+     * single value of the field. The estimates are only compared with each other, to find the most selective
+     * criterion of a query.
+     */
+    public enum Field {
+        ID("id", 0.001, Account::getId),
+        FIRST_NAME("firstName", 0.02, Account::getFirstName),
+        LAST_NAME("lastName", 0.02, Account::getLastName),
+        SALARY_CURRENCY("salaryCurrency", 0.25, Account::getSalaryCurrency),
+        ACTIVE("active", 0.75, account -> Boolean.toString(account.isActive()));
+
+        private final String name;
+        private final double selectivity;
+        private final Function<Account, String> valueOf;
+
+        Field(String name, double selectivity, Function<Account, String> valueOf) {
+            this.name = name;
+            this.selectivity = selectivity;
+            this.valueOf = valueOf;
+        }
+
+        /**
+         * @return The name of the field in the API.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The estimated share of all accounts that have any single value of the field.
+         */
+        public double getSelectivity() {
+            return selectivity;
+        }
+    }
+
+    private AccountQuery(List<Criterion> criteria, LocalDate employedFrom, LocalDate employedTo) {
+        this.criteria = criteria;
+        this.employedFrom = employedFrom;
+        this.employedTo = employedTo;
+    }
+
+    /**
+     * @return A query matching all accounts.
+     */
+    public static AccountQuery all() {
+        return new AccountQuery(List.of(), null, null);
+    }
+
+    /**
+     * @param field The field to match.
+     * @param value The value the field must have.
+     * @return A query matching the accounts with the given field value.
+     */
+    public static AccountQuery where(Field field, String value) {
+        return all().and(field, value);
+    }
+
+    /**
+     * @param field  The field to match.
+     * @param values The values of which the field must have one. An empty collection matches no accounts.
+     * @return A query matching the accounts with any of the given field values.
+     */
+    public static AccountQuery whereIn(Field field, Collection<String> values) {
+        return all().andIn(field, values);
+    }
+
+    /**
+     * @param field The field to match.
+     * @param value The value the field must have.
+     * @return A copy of this query, which also requires the given field value.
+     */
+    public AccountQuery and(Field field, String value) {
+        return andIn(field, List.of(value));
+    }
+
+    /**
+     * @param field  The field to match.
+     * @param values The values of which the field must have one. An empty collection matches no accounts.
+     * @return A copy of this query, which also requires one of the given field values.
+     */
+    public AccountQuery andIn(Field field, Collection<String> values) {
+        List<Criterion> newCriteria = new ArrayList<>(criteria);
+        newCriteria.add(new Criterion(field, values));
+        return new AccountQuery(Collections.unmodifiableList(newCriteria), employedFrom, employedTo);
+    }
+
+    /**
+     * @return A copy of this query, which only matches active accounts.
+     */
+    public AccountQuery activeOnly() {
+        return and(Field.ACTIVE, Boolean.toString(true));
+    }
+
+    /**
+     * The employment date range cannot be filtered on by the API, so it is always evaluated on the returned accounts.
+     *
+     * @param employmentStartDate The first date of the range.
+     * @param employmentEndDate   The last date of the range.
+     * @return A copy of this query, which only matches accounts whose employment date is within the range, both
+     * ends inclusive. Replaces any range set before.
+     */
+    public AccountQuery employedBetween(LocalDate employmentStartDate, LocalDate employmentEndDate) {
+        return new AccountQuery(criteria, employmentStartDate, employmentEndDate);
+    }
+
+    /**
+     * @return The field value criteria, in the order they were added.
+     */
+    public List<Criterion> getCriteria() {
+        return criteria;
+    }
+
+    /**
+     * Compiles the criteria of this query into a single predicate, leaving out one criterion that is already
+     * satisfied by the filter sent to the API. The employment date range is converted to epoch seconds once, rather
+     * than for every account.
+     *
+     * @param satisfiedCriterion A criterion not to evaluate, or {@code null} to evaluate all of them.
+     * @return A predicate that is {@code true} for accounts matching the remaining criteria.
+     */
+    Predicate<Account> toPredicate(Criterion satisfiedCriterion) {
+        Predicate<Account> predicate = account -> true;
+        for (Criterion criterion : criteria) {
+            if (criterion != satisfiedCriterion) {
+                predicate = predicate.and(criterion.toPredicate());
+            }
+        }
+        if (employedFrom != null) {
+            long fromEpochSecond = AccountHelper.startOfDayInEpochSeconds(employedFrom);
+            long toEpochSecond = AccountHelper.startOfDayInEpochSeconds(employedTo.plusDays(1));
+            predicate = predicate.and(account ->
+                    account.getEmployedSince() >= fromEpochSecond && account.getEmployedSince() < toEpochSecond);
+        }
+        return predicate;
+    }
+
+    @Override
+    public String toString() {
+        List<String> parts = new ArrayList<>();
+        criteria.forEach(criterion -> parts.add(criterion.toString()));
+        if (employedFrom != null) {
+            parts.add(String.format("employedSince in [%s, %s]", employedFrom, employedTo));
+        }
+        return parts.isEmpty() ? "all accounts" : String.join(" and ", parts);
+    }
+
+    /**
+     * A criterion requiring a field to have one of a set of values.
+     */
+    public static class Criterion {
+        private final Field field;
+        private final Set<String> values;
+
+        private Criterion(Field field, Collection<String> values) {
+            this.field = field;
+            this.values = Collections.unmodifiableSet(new LinkedHashSet<>(values));
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        /**
+         * @return The distinct values of which the field must have one, in the order they were given.
+         */
+        public Set<String> getValues() {
+            return values;
+        }
+
+        /**
+         * @return The estimated share of all accounts matching this criterion.
+         */
+        double estimateSelectivity() {
+            return Math.min(1.0, values.size() * field.getSelectivity());
+        }
+
+        /**
+         * @param value One of the values of this criterion.
+         * @return The API filter matching accounts with the value.
+         */
+        String toFilter(String value) {
+            return field.getName() + "=" + value;
+        }
+
+        private Predicate<Account> toPredicate() {
+            Function<Account, String> valueOf = field.valueOf;
+            if (values.size() == 1) {
+                String value = values.iterator().next();
+                return account -> value.equals(valueOf.apply(account));
+            }
+            return account -> values.contains(valueOf.apply(account));
+        }
+
+        @Override
+        public String toString() {
+            return values.size() == 1
+                    ? toFilter(values.iterator().next())
+                    : String.format("%s in %s", field.getName(), values);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.infrasight.kodtest.api.client;
+
+import com.infrasight.kodtest.api.model.Account;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * How an {@link AccountQuery} is run: which filters are sent to the API, and the predicate evaluated on the accounts
+ * they return. Created by the {@link AccountQueryPlanner}.
+ */
+public class AccountQueryPlan {
+
+    public enum Strategy {
+        /** One scan with the filter of the most selective single-value criterion. */
+        FILTERED_SCAN,
+        /** One concurrent scan per value of a multi-value criterion. */
+        POINT_SCANS,
+        /** One scan of all accounts, without a filter. */
+        FULL_SCAN
+    }
+
+    private final Strategy strategy;
+    private final List<String> filters;
+    private final Predicate<Account> residualPredicate;
+    private final String description;
+
+    AccountQueryPlan(Strategy strategy, List<String> filters, Predicate<Account> residualPredicate, String description) {
+        this.strategy = strategy;
+        this.filters = filters;
+        this.residualPredicate = residualPredicate;
+        this.description = description;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return The filters sent to the API, one per scan. Empty for a full scan.
+     */
+    public List<String> getFilters() {
+        return filters;
+    }
+
+    /**
+     * @return The predicate evaluated on each returned account, for the criteria not satisfied by the filters.
+     */
+    public Predicate<Account> getResidualPredicate() {
+        return residualPredicate;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,67 @@
+package com.infrasight.kodtest.api.client;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses which criterion of an {@link AccountQuery} is sent to the API as the filter.
+ * <p>
+ * A filtered scan returns only the accounts matching its filter, so the criterion estimated to match the fewest
+ * accounts is pushed down, see {@link AccountQuery.Field#getSelectivity()}. A criterion with several values needs one
+ * scan per value. Whether those scans are cheaper than one scan of all accounts is decided by the
+ * {@link AccountLookupPlanner}. If they are not, the most selective single-value criterion is pushed down instead,
+ * or all accounts are scanned if there is none. All other criteria are evaluated on the returned accounts.
+ * </p>
+ */
+public class AccountQueryPlanner {
+    private final AccountLookupPlanner lookupPlanner;
+
+    /**
+     * @param lookupPlanner Decides between one scan per value and one scan of all accounts.
+     */
+    public AccountQueryPlanner(AccountLookupPlanner lookupPlanner) {
+        this.lookupPlanner = lookupPlanner;
+    }
+
+    /**
+     * Plans a query. A criterion with more than 10 values is only pushed down after the {@link AccountLookupPlanner}
+     * has compared its point scans with a full scan, which blocks on a count request the first time.
+     *
+     * @param query The query to plan.
+     * @return The plan with the fewest estimated accounts transferred.
+     * @throws com.infrasight.kodtest.exception.ApiClientException If the total number of accounts cannot be retrieved.
+     */
+    public AccountQueryPlan plan(AccountQuery query) {
+        AccountQuery.Criterion mostSelective = null;
+        AccountQuery.Criterion mostSelectiveSingleValue = null;
+        for (AccountQuery.Criterion criterion : query.getCriteria()) {
+            if (mostSelective == null || criterion.estimateSelectivity() < mostSelective.estimateSelectivity()) {
+                mostSelective = criterion;
+            }
+            if (criterion.getValues().size() == 1 && (mostSelectiveSingleValue == null
+                    || criterion.estimateSelectivity() < mostSelectiveSingleValue.estimateSelectivity())) {
+                mostSelectiveSingleValue = criterion;
+            }
+        }
+
+        if (mostSelective != null && mostSelective != mostSelectiveSingleValue
+                && lookupPlanner.chooseStrategy(mostSelective.getValues().size()) == AccountLookupPlanner.Strategy.POINT_LOOKUPS) {
+            AccountQuery.Criterion pushedDown = mostSelective;
+            List<String> filters = pushedDown.getValues().stream()
+                    .map(pushedDown::toFilter)
+                    .collect(Collectors.toList());
+            return newPlan(AccountQueryPlan.Strategy.POINT_SCANS, filters, query, pushedDown);
+        }
+        if (mostSelectiveSingleValue != null) {
+            List<String> filters = List.of(mostSelectiveSingleValue.toFilter(mostSelectiveSingleValue.getValues().iterator().next()));
+            return newPlan(AccountQueryPlan.Strategy.FILTERED_SCAN, filters, query, mostSelectiveSingleValue);
+        }
+        return newPlan(AccountQueryPlan.Strategy.FULL_SCAN, List.of(), query, null);
+    }
+
+    private static AccountQueryPlan newPlan(AccountQueryPlan.Strategy strategy, List<String> filters, AccountQuery query,
+                                            AccountQuery.Criterion pushedDown) {
+        String description = String.format("%s %s", strategy, pushedDown == null ? "of all accounts" : "on " + pushedDown);
+        return new AccountQueryPlan(strategy, filters, query.toPredicate(pushedDown), description);
+    }
+}
@@ -1,20 +1,46 @@
 package com.infrasight.kodtest.api.client;
 
-import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.infrasight.kodtest.api.model.ApiRecord;
 import com.infrasight.kodtest.exception.ApiClientException;
+import com.infrasight.kodtest.metrics.ApiMetrics;
+import com.infrasight.kodtest.metrics.CallTally;
+import com.infrasight.kodtest.metrics.QueryMetrics;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * API client for fetching records from an API with support for pagination and retries.
@@ -23,26 +49,92 @@ public class ApiClient {
     private static final Logger logger = LoggerFactory.getLogger(ApiClient.class);
     private static final int DEFAULT_PAGINATION_LIMIT = 250;
     private static final int DEFAULT_MAX_RETRIES = 10;
+    private static final int DEFAULT_PAGE_FETCH_PARALLELISM = 1;
+    private static final long PAGE_FETCH_THREAD_KEEP_ALIVE_SECONDS = 30;
     private static final String URL_PARAM_SKIP = "skip";
     private static final String URL_PARAM_TAKE = "take";
     private static final String URL_PARAM_FILTER = "filter";
 
     private final OkHttpClient client;
     private final String apiBaseUrl;
-    private final String accessToken;
     private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readersByClass = new ConcurrentHashMap<>();
     private final PaginationHandler paginationHandler;
+    private final int pageFetchParallelism;
+    private final ExecutorService pageFetchExecutor;
+    private final RateLimiter rateLimiter;
+    private final BackoffPolicy backoffPolicy;
+    private final boolean gzipEnabled;
+    private final ApiMetrics metrics = new ApiMetrics();
 
     public ApiClient(OkHttpClient client, String apiBaseUrl, String accessToken) {
-        this.client = client;
+        this(client, apiBaseUrl, accessToken, DEFAULT_PAGE_FETCH_PARALLELISM);
+    }
+
+    /**
+     * Creates an API client which fetches pages in parallel once the total number of items is known.
+     *
+     * @param client               The HTTP client used for all requests.
+     * @param apiBaseUrl           The base URL of the API, ending with a slash.
+     * @param accessToken          The bearer token used for authorization.
+     * @param pageFetchParallelism The maximum number of pages fetched concurrently. A value of 1 disables
+     *                             parallel pagination.
+     */
+    public ApiClient(OkHttpClient client, String apiBaseUrl, String accessToken, int pageFetchParallelism) {
+        this(client, apiBaseUrl, TokenProvider.fixed(accessToken), pageFetchParallelism, new RateLimiter(), true);
+    }
+
+    /**
+     * Creates an API client with its own connection pool and dispatcher, see {@link ApiClientConfig}.
+     *
+     * @param client      The HTTP client to copy for all requests. Its timeouts and interceptors are kept.
+     * @param apiBaseUrl  The base URL of the API, ending with a slash.
+     * @param accessToken The bearer token used for authorization.
+     * @param config      The connection, concurrency and rate settings.
+     */
+    public ApiClient(OkHttpClient client, String apiBaseUrl, String accessToken, ApiClientConfig config) {
+        this(client, apiBaseUrl, TokenProvider.fixed(accessToken), config);
+    }
+
+    /**
+     * Creates an API client which gets its tokens from a {@link TokenProvider}, so that tokens are renewed before
+     * they expire and requests rejected with 401 (Unauthorized) are retried once with a renewed token.
+     *
+     * @param client        The HTTP client to copy for all requests. Its timeouts and interceptors are kept.
+     * @param apiBaseUrl    The base URL of the API, ending with a slash.
+     * @param tokenProvider The source of bearer tokens used for authorization.
+     * @param config        The connection, concurrency and rate settings.
+     */
+    public ApiClient(OkHttpClient client, String apiBaseUrl, TokenProvider tokenProvider, ApiClientConfig config) {
+        this(config.newHttpClient(client), apiBaseUrl, tokenProvider, config.getPageFetchParallelism(),
+                config.newRateLimiter(), config.isGzipEnabled());
+    }
+
+    private ApiClient(OkHttpClient client, String apiBaseUrl, TokenProvider tokenProvider, int pageFetchParallelism,
+                      RateLimiter rateLimiter, boolean gzipEnabled) {
+        if (pageFetchParallelism < 1) {
+            throw new IllegalArgumentException("pageFetchParallelism must be at least 1");
+        }
+        // shares the connection pool and dispatcher of the given client
+        this.client = client.newBuilder()
+                .addInterceptor(new BearerTokenInterceptor(tokenProvider))
+                .build();
         this.apiBaseUrl = apiBaseUrl;
-        this.accessToken = accessToken;
         this.paginationHandler = new PaginationHandler();
         this.objectMapper = new ObjectMapper();
+        this.pageFetchParallelism = pageFetchParallelism;
+        this.pageFetchExecutor = pageFetchParallelism > 1 ? createPageFetchExecutor(pageFetchParallelism) : null;
+        this.rateLimiter = rateLimiter;
+        this.backoffPolicy = new BackoffPolicy();
+        this.gzipEnabled = gzipEnabled;
     }
 
     /**
      * Retrieves records from a paginated API endpoint.
+     * <p>
+     * When the client is created with a page fetch parallelism above 1, all pages after the first are fetched
+     * concurrently. Otherwise pages are fetched one after another.
+     * </p>
      *
      * @param <T>      The type of records extending {@link ApiRecord} that will be retrieved and mapped from the API response.
      * @param endpoint The relative API path that identifies the resource to fetch (e.g., "accounts", "groups", "relationships").
@@ -52,29 +144,399 @@ public class ApiClient {
      * @throws ApiClientException If an error occurs during the request.
      */
     protected <T extends ApiRecord> List<T> getRecords(String endpoint, Class<T> clazz, String filter) {
+        if (pageFetchParallelism > 1) {
+            return getRecordsInParallel(endpoint, clazz, filter);
+        }
+
         List<T> result = new ArrayList<>();
-        int skip = 0;
-        int totalItems = Integer.MAX_VALUE;
+        int pages = fetchRemainingPagesSequentially(endpoint, clazz, filter, 0, result::add);
+        recordCall(endpoint, filter, pages);
+        return result;
+    }
 
-        while (skip < totalItems) {
-            String url = buildUrl(endpoint, skip, DEFAULT_PAGINATION_LIMIT, filter);
+    /**
+     * Streams records from a paginated API endpoint to a consumer, one record at a time as it is decoded.
+     * <p>
+     * Pages are fetched one after another and read directly from the response byte stream, so neither a page nor
+     * the full result is ever held in memory.
+     * </p>
+     *
+     * @param <T>      The type of records extending {@link ApiRecord} that will be retrieved and mapped from the API response.
+     * @param endpoint The relative API path that identifies the resource to fetch (e.g., "accounts", "groups", "relationships").
+     * @param clazz    The Class representing the type {@code T}, used for JSON deserialization.
+     * @param filter   Optional filter on exact field value. Syntax is field=value. Example: objectType=Account.
+     * @param consumer Receives each record in the order they appear in the API.
+     * @throws ApiClientException If an error occurs during the request.
+     */
+    protected <T extends ApiRecord> void forEachRecord(String endpoint, Class<T> clazz, String filter, Consumer<? super T> consumer) {
+        int pages = fetchRemainingPagesSequentially(endpoint, clazz, filter, 0, consumer);
+        recordCall(endpoint, filter, pages);
+    }
 
-            try (Response response = executeRequestWithRetry(buildGetRequest(url))) {
-                validateResponse(response);
-                result.addAll(parseResponseBody(clazz, response));
+    /**
+     * Retrieves records from a paginated API endpoint as a lazy stream.
+     * <p>
+     * No request is sent until the stream's terminal operation starts, and each following page is requested only
+     * when the consumer has read every record of the previous one. Records are decoded one at a time from the open
+     * response, so a full-table scan runs in constant memory, and short-circuiting operations such as
+     * {@code limit} or {@code findFirst} stop paging early.
+     * </p>
+     * <p>
+     * The stream holds an open HTTP response while it is being consumed. Close it, for example with
+     * try-with-resources, if it may not be consumed to the end.
+     * </p>
+     *
+     * @param <T>      The type of records extending {@link ApiRecord} that will be retrieved and mapped from the API response.
+     * @param endpoint The relative API path that identifies the resource to fetch (e.g., "accounts", "groups", "relationships").
+     * @param clazz    The Class representing the type {@code T}, used for JSON deserialization.
+     * @param filter   Optional filter on exact field value. Syntax is field=value. Example: objectType=Account.
+     * @return A sequential, ordered stream of records of type {@code T}. Errors during consumption are thrown as
+     * {@link ApiClientException}.
+     */
+    protected <T extends ApiRecord> Stream<T> streamRecords(String endpoint, Class<T> clazz, String filter) {
+        RecordIterator<T> records = new RecordIterator<>(endpoint, clazz, filter);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(records::close);
+    }
 
-                String contentRange = response.header("Content-Range");
-                if (paginationHandler.isLastPage(contentRange)) break;
-                totalItems = paginationHandler.extractTotalItems(contentRange);
-                skip = paginationHandler.extractNextSkip(contentRange);
-            } catch (IOException e) {
-                throw new ApiClientException(String.format("Error fetching records: %s", e.getMessage()), e);
+    /**
+     * Retrieves records by first fetching one page to learn the total number of items from the "Content-Range"
+     * header, and then fetching all remaining pages concurrently. Pages are merged in the order they appear in the API.
+     */
+    private <T extends ApiRecord> List<T> getRecordsInParallel(String endpoint, Class<T> clazz, String filter) {
+        List<T> result = new ArrayList<>();
+        ContentRange contentRange = fetchPage(endpoint, clazz, filter, 0, DEFAULT_PAGINATION_LIMIT, result::add);
+        if (contentRange == null || !contentRange.hasMore()) {
+            recordCall(endpoint, filter, 1);
+            return result;
+        }
+
+        int pageSize = contentRange.getPageSize();
+        List<Future<Page<T>>> pendingPages = new ArrayList<>();
+        for (int skip = contentRange.getNextSkip(); skip < contentRange.getTotal(); skip += pageSize) {
+            int pageSkip = skip;
+            pendingPages.add(pageFetchExecutor.submit(() -> fetchPage(endpoint, clazz, filter, pageSkip, pageSize)));
+        }
+
+        try {
+            for (Future<Page<T>> pendingPage : pendingPages) {
+                result.addAll(pendingPage.get().records);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiClientException("Interrupted while fetching records", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiClientException) {
+                throw (ApiClientException) e.getCause();
+            }
+            throw new ApiClientException(String.format("Error fetching records: %s", e.getCause().getMessage()), e.getCause());
+        } finally {
+            pendingPages.forEach(pendingPage -> pendingPage.cancel(true));
+        }
+
+        recordCall(endpoint, filter, 1 + pendingPages.size());
+        return result;
+    }
+
+    /**
+     * Fetches pages one after another, starting at the given skip value, until the API reports that no more items
+     * are available. Fetched records are handed to the consumer as they are decoded.
+     *
+     * @return The number of pages fetched.
+     */
+    private <T extends ApiRecord> int fetchRemainingPagesSequentially(String endpoint, Class<T> clazz, String filter,
+                                                                      int skip, Consumer<? super T> consumer) {
+        int pages = 0;
+        while (true) {
+            ContentRange contentRange = fetchPage(endpoint, clazz, filter, skip, DEFAULT_PAGINATION_LIMIT, consumer);
+            pages++;
+            if (contentRange == null || !contentRange.hasMore()) break;
+            skip = contentRange.getNextSkip();
+        }
+        return pages;
+    }
+
+    /**
+     * Fetches a single page of records.
+     *
+     * @param skip The number of records to skip.
+     * @param take The number of records to request. The API may return fewer.
+     * @return The records of the page together with the "Content-Range" header describing it.
+     * @throws ApiClientException If an error occurs during the request.
+     */
+    private <T extends ApiRecord> Page<T> fetchPage(String endpoint, Class<T> clazz, String filter, int skip, int take) {
+        List<T> records = new ArrayList<>();
+        ContentRange contentRange = fetchPage(endpoint, clazz, filter, skip, take, records::add);
+        return new Page<>(records, contentRange);
+    }
+
+    /**
+     * Fetches a single page of records, handing each record to the consumer as it is decoded.
+     *
+     * @param skip     The number of records to skip.
+     * @param take     The number of records to request. The API may return fewer.
+     * @param consumer Receives each record of the page.
+     * @return The parsed "Content-Range" header describing the page, or {@code null} if it is missing or invalid.
+     * @throws ApiClientException If an error occurs during the request.
+     */
+    private <T extends ApiRecord> ContentRange fetchPage(String endpoint, Class<T> clazz, String filter, int skip, int take,
+                                                   Consumer<? super T> consumer) {
+        String url = buildUrl(endpoint, skip, take, filter);
+        QueryMetrics queryMetrics = metrics.forQuery(endpoint, filter);
+
+        try (Response response = executeRequestWithRetry(buildGetRequest(url), queryMetrics)) {
+            validateResponse(response);
+            parseResponseBody(clazz, response, consumer, queryMetrics);
+            return paginationHandler.parse(response.header("Content-Range"));
+        } catch (IOException e) {
+            throw new ApiClientException(String.format("Error fetching records: %s", e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Retrieves the total number of records matching a filter, by requesting a single record and reading the total
+     * from the "Content-Range" header.
+     *
+     * @param <T>      The type of records extending {@link ApiRecord} available from the endpoint.
+     * @param endpoint The relative API path that identifies the resource to count.
+     * @param clazz    The Class representing the type {@code T}, used for JSON deserialization.
+     * @param filter   Optional filter on exact field value. Syntax is field=value. Example: objectType=Account.
+     * @return The total number of matching records.
+     * @throws ApiClientException If an error occurs during the request or the total is not reported.
+     */
+    protected <T extends ApiRecord> int countRecords(String endpoint, Class<T> clazz, String filter) {
+        Page<T> page = fetchPage(endpoint, clazz, filter, 0, 1);
+        if (page.contentRange == null) {
+            throw new ApiClientException(String.format("No total reported for endpoint %s", endpoint));
+        }
+        return page.contentRange.getTotal();
+    }
+
+    /**
+     * Asynchronously retrieves the total number of records matching a filter, see
+     * {@link #countRecords(String, Class, String)}.
+     *
+     * @param <T>      The type of records extending {@link ApiRecord} available from the endpoint.
+     * @param endpoint The relative API path that identifies the resource to count.
+     * @param clazz    The Class representing the type {@code T}, used for JSON deserialization.
+     * @param filter   Optional filter on exact field value. Syntax is field=value. Example: objectType=Account.
+     * @return A future completed with the total number of matching records, or completed exceptionally with an
+     * {@link ApiClientException} if an error occurs during the request or the total is not reported.
+     */
+    protected <T extends ApiRecord> CompletableFuture<Integer> countRecordsAsync(String endpoint, Class<T> clazz, String filter) {
+        return fetchPageAsync(endpoint, clazz, filter, 0, 1).thenApply(page -> {
+            if (page.contentRange == null) {
+                throw new ApiClientException(String.format("No total reported for endpoint %s", endpoint));
             }
+            return page.contentRange.getTotal();
+        });
+    }
+
+    /**
+     * Fetches a single page without decoding it, so that callers can compare pages by checksum before paying for
+     * deserialization.
+     *
+     * @param endpoint The relative API path that identifies the resource to fetch.
+     * @param filter   Optional filter on exact field value. Syntax is field=value. Example: objectType=Account.
+     * @param skip     The number of records to skip.
+     * @param take     The number of records to request. The API may return fewer.
+     * @return The raw response body of the page together with the "Content-Range" header describing it.
+     * @throws ApiClientException If an error occurs during the request.
+     */
+    protected RawPage fetchRawPage(String endpoint, String filter, int skip, int take) {
+        String url = buildUrl(endpoint, skip, take, filter);
+        QueryMetrics queryMetrics = metrics.forQuery(endpoint, filter);
+
+        try (Response response = executeRequestWithRetry(buildGetRequest(url), queryMetrics)) {
+            validateResponse(response);
+            if (response.body() == null) {
+                throw new ApiClientException("Response body is null");
+            }
+            byte[] body = response.body().bytes();
+            queryMetrics.recordBytes(body.length);
+            return new RawPage(body, paginationHandler.parse(response.header("Content-Range")));
+        } catch (IOException e) {
+            throw new ApiClientException(String.format("Error fetching records: %s", e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Deserializes the records of a page fetched with {@link #fetchRawPage(String, String, int, int)}.
+     *
+     * @param <T>   The type of the records.
+     * @param clazz The class type to deserialize the JSON into.
+     * @param page  The raw page.
+     * @return The records of the page.
+     * @throws ApiClientException If the page is not a JSON array of records.
+     */
+    protected <T extends ApiRecord> List<T> parseRecords(Class<T> clazz, RawPage page) {
+        try (MappingIterator<T> records = getReader(clazz).<T>readValues(page.getBody())) {
+            return records.readAll();
+        } catch (IOException e) {
+            throw new ApiClientException(String.format("Error parsing records: %s", e.getMessage()), e);
         }
+    }
+
+    /**
+     * @return The maximum number of pages fetched concurrently by {@link #getRecords(String, Class, String)}.
+     */
+    public int getPageFetchParallelism() {
+        return pageFetchParallelism;
+    }
+
+    /**
+     * @return The maximum number of asynchronous requests sent concurrently to the API host, as limited by the
+     * {@link OkHttpClient}'s dispatcher.
+     */
+    public int getMaxConcurrentRequests() {
+        return client.dispatcher().getMaxRequestsPerHost();
+    }
+
+    /**
+     * @return The request metrics of this client, per endpoint and filter field.
+     */
+    public ApiMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Asynchronously retrieves records from a paginated API endpoint without blocking the calling thread.
+     * <p>
+     * Requests are sent with OkHttp's {@code enqueue}, so concurrency is bounded by the {@link OkHttpClient}'s
+     * dispatcher rather than by threads. Once the first page reports the total number of items, all remaining
+     * pages are requested at once and merged in the order they appear in the API.
+     * </p>
+     *
+     * @param <T>      The type of records extending {@link ApiRecord} that will be retrieved and mapped from the API response.
+     * @param endpoint The relative API path that identifies the resource to fetch (e.g., "accounts", "groups", "relationships").
+     * @param clazz    The Class representing the type {@code T}, used for JSON deserialization.
+     * @param filter   Optional filter on exact field value. Syntax is field=value. Example: objectType=Account.
+     * @return A future completed with the records of type {@code T}, or completed exceptionally with an
+     * {@link ApiClientException} if an error occurs during any of the requests.
+     */
+    protected <T extends ApiRecord> CompletableFuture<List<T>> getRecordsAsync(String endpoint, Class<T> clazz, String filter) {
+        return fetchPageAsync(endpoint, clazz, filter, 0, DEFAULT_PAGINATION_LIMIT).thenCompose(firstPage -> {
+            ContentRange contentRange = firstPage.contentRange;
+            if (contentRange == null || !contentRange.hasMore()) {
+                recordCall(endpoint, filter, 1);
+                return CompletableFuture.completedFuture(firstPage.records);
+            }
+
+            int pageSize = contentRange.getPageSize();
+            List<CompletableFuture<Page<T>>> pendingPages = new ArrayList<>();
+            for (int skip = contentRange.getNextSkip(); skip < contentRange.getTotal(); skip += pageSize) {
+                pendingPages.add(fetchPageAsync(endpoint, clazz, filter, skip, pageSize));
+            }
+
+            return CompletableFuture.allOf(pendingPages.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                List<T> result = new ArrayList<>(firstPage.records);
+                for (CompletableFuture<Page<T>> pendingPage : pendingPages) {
+                    result.addAll(pendingPage.join().records);
+                }
+                recordCall(endpoint, filter, 1 + pendingPages.size());
+                return result;
+            });
+        });
+    }
 
+    /**
+     * Asynchronously fetches a single page of records.
+     *
+     * @param skip The number of records to skip.
+     * @param take The number of records to request. The API may return fewer.
+     * @return A future completed with the records of the page together with the "Content-Range" header describing it.
+     */
+    private <T extends ApiRecord> CompletableFuture<Page<T>> fetchPageAsync(String endpoint, Class<T> clazz, String filter,
+                                                                           int skip, int take) {
+        CompletableFuture<Page<T>> result = new CompletableFuture<>();
+        enqueueRequestWithRetry(buildGetRequest(buildUrl(endpoint, skip, take, filter)), clazz, result,
+                metrics.forQuery(endpoint, filter), 0);
         return result;
     }
 
+    /**
+     * Enqueues an HTTP request and completes the given future with the parsed page. The request is delayed, without
+     * blocking, until a token is available from the shared {@link RateLimiter}. Rate-limited responses are re-enqueued
+     * after the delay given by the {@link BackoffPolicy} until the maximum number of retries is reached.
+     *
+     * @param request The HTTP request to be sent.
+     * @param clazz   The class type to deserialize the JSON into.
+     * @param result       The future to complete with the parsed page, or exceptionally with an {@link ApiClientException}.
+     * @param queryMetrics The metrics to record the request in.
+     * @param attempt      The number of rate-limited attempts made so far.
+     */
+    private <T> void enqueueRequestWithRetry(Request request, Class<T> clazz, CompletableFuture<Page<T>> result,
+                                             QueryMetrics queryMetrics, int attempt) {
+        long waitNanos = rateLimiter.reserve();
+        if (waitNanos > 0) {
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS)
+                    .execute(() -> enqueueRequest(request, clazz, result, queryMetrics, attempt));
+        } else {
+            enqueueRequest(request, clazz, result, queryMetrics, attempt);
+        }
+    }
+
+    private <T> void enqueueRequest(Request request, Class<T> clazz, CompletableFuture<Page<T>> result,
+                                    QueryMetrics queryMetrics, int attempt) {
+        queryMetrics.recordRequest();
+        long sentNanos = System.nanoTime();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                queryMetrics.recordFailure();
+                result.completeExceptionally(new ApiClientException(String.format("Error making request: %s", e.getMessage()), e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (response.isSuccessful()) {
+                        queryMetrics.recordResponse(System.nanoTime() - sentNanos);
+                        rateLimiter.onSuccess();
+                        List<T> records = new ArrayList<>();
+                        parseResponseBody(clazz, response, records::add, queryMetrics);
+                        result.complete(new Page<>(records, paginationHandler.parse(response.header("Content-Range"))));
+                    } else if (response.code() == 429) { // Too Many Requests
+                        queryMetrics.recordThrottled();
+                        long retryAfterMillis = backoffPolicy.parseRetryAfterMillis(response.header("Retry-After"));
+                        rateLimiter.onThrottled(retryAfterMillis);
+                        int nextAttempt = attempt + 1;
+                        if (nextAttempt < DEFAULT_MAX_RETRIES) {
+                            queryMetrics.recordRetry();
+                            long delayMillis = backoffPolicy.getDelayMillis(nextAttempt, retryAfterMillis);
+                            logger.debug("Request to {} was rate limited, retry {} in {} ms", request.url(), nextAttempt, delayMillis);
+                            CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS)
+                                    .execute(() -> enqueueRequestWithRetry(request, clazz, result, queryMetrics, nextAttempt));
+                        } else {
+                            queryMetrics.recordFailure();
+                            result.completeExceptionally(new ApiClientException(
+                                    String.format("Max retries (%d) reached. Request failed.", DEFAULT_MAX_RETRIES)));
+                        }
+                    } else {
+                        queryMetrics.recordFailure();
+                        result.completeExceptionally(new ApiClientException(
+                                String.format("Request failed with status %d: %s", response.code(), response.message())));
+                    }
+                } catch (IOException e) {
+                    queryMetrics.recordFailure();
+                    result.completeExceptionally(new ApiClientException(String.format("Error fetching records: %s", e.getMessage()), e));
+                } catch (RuntimeException e) {
+                    queryMetrics.recordFailure();
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Records a completed retrieval of all pages of a query, in the metrics and in the calling thread's
+     * {@link CallTally}.
+     */
+    private void recordCall(String endpoint, String filter, int pages) {
+        metrics.forQuery(endpoint, filter).recordCall(pages);
+        CallTally.recordPages(pages);
+    }
+
     /**
      * Validates the API response.
      */
@@ -87,55 +549,109 @@ public class ApiClient {
 
     /**
      * Sends an HTTP request with automatic retry handling for rate-limited responses.
+     * <p>
+     * Every attempt first acquires a token from the shared {@link RateLimiter}. Rate-limited attempts are retried
+     * after the delay given by the {@link BackoffPolicy}.
+     * </p>
      *
-     * @param request The HTTP request to be sent.
+     * @param request      The HTTP request to be sent.
+     * @param queryMetrics The metrics to record the request in.
      * @return The successful HTTP response.
      * @throws ApiClientException If the request fails after the maximum number of retries
      *                            or encounters an I/O error.
      */
-    private Response executeRequestWithRetry(Request request) {
+    private Response executeRequestWithRetry(Request request, QueryMetrics queryMetrics) {
         int attempt = 0;
 
         while (attempt < DEFAULT_MAX_RETRIES) {
             try {
+                if (attempt > 0) {
+                    queryMetrics.recordRetry();
+                }
+                rateLimiter.acquire();
+                queryMetrics.recordRequest();
+                long sentNanos = System.nanoTime();
                 Response response = client.newCall(request).execute();
 
                 if (response.isSuccessful()) {
+                    queryMetrics.recordResponse(System.nanoTime() - sentNanos);
+                    rateLimiter.onSuccess();
                     return response;
                 } else if (response.code() == 429) { // Too Many Requests
+                    queryMetrics.recordThrottled();
+                    long retryAfterMillis = backoffPolicy.parseRetryAfterMillis(response.header("Retry-After"));
                     response.close();
-                    //would normally use exponential backoff here, though I skipped it to let the tests run faster
+                    rateLimiter.onThrottled(retryAfterMillis);
                     attempt++;
+                    if (attempt < DEFAULT_MAX_RETRIES) {
+                        long delayMillis = backoffPolicy.getDelayMillis(attempt, retryAfterMillis);
+                        logger.debug("Request to {} was rate limited, retry {} in {} ms", request.url(), attempt, delayMillis);
+                        Thread.sleep(delayMillis);
+                    }
                 } else {
+                    queryMetrics.recordFailure();
                     throw new ApiClientException(
                             String.format("Request failed with status %d: %s", response.code(), response.message()));
                 }
             } catch (IOException e) {
+                queryMetrics.recordFailure();
                 throw new ApiClientException(String.format("Error making request: %s", e.getMessage()), e);
+            } catch (InterruptedException e) {
+                queryMetrics.recordFailure();
+                Thread.currentThread().interrupt();
+                throw new ApiClientException("Interrupted while waiting to retry request", e);
             }
         }
 
+        queryMetrics.recordFailure();
         throw new ApiClientException(String.format("Max retries (%d) reached. Request failed.", DEFAULT_MAX_RETRIES));
     }
 
 
     /**
-     * Deserializes the HTTP response body into a list of objects of the specified type.
+     * Deserializes the HTTP response body record by record, handing each record to the consumer as soon as it is
+     * decoded.
+     * <p>
+     * The JSON array is read directly from the response byte stream, so the body is never buffered as a
+     * {@code String} and no intermediate list of the page is built.
+     * </p>
      *
-     * @param <T>      The type of objects in the resulting list.
-     * @param clazz    The class type to deserialize the JSON into.
-     * @param response The HTTP response containing the JSON body.
-     * @return A list of deserialized objects of type {@code T}.
+     * @param <T>          The type of the records.
+     * @param clazz        The class type to deserialize the JSON into.
+     * @param response     The HTTP response containing a JSON array body.
+     * @param consumer     Receives each deserialized record.
+     * @param queryMetrics The metrics to record the parse time, body size and record count in.
+     * @return The number of records read.
      * @throws IOException        If an error occurs while reading or deserializing the response.
      * @throws ApiClientException If the response body is null.
      */
-    private <T> List<T> parseResponseBody(Class<T> clazz, Response response) throws IOException {
+    private <T> int parseResponseBody(Class<T> clazz, Response response, Consumer<? super T> consumer,
+                                      QueryMetrics queryMetrics) throws IOException {
         if (response.body() == null) {
             throw new ApiClientException("Response body is null");
         }
 
-        JavaType responseType = objectMapper.getTypeFactory().constructCollectionType(List.class, clazz);
-        return objectMapper.readValue(response.body().string(), responseType);
+        long startNanos = System.nanoTime();
+        int recordCount = 0;
+        CountingInputStream body = new CountingInputStream(response.body().byteStream());
+        try (MappingIterator<T> records = getReader(clazz).<T>readValues(body)) {
+            while (records.hasNextValue()) {
+                consumer.accept(records.nextValue());
+                recordCount++;
+            }
+        }
+        queryMetrics.recordParse(System.nanoTime() - startNanos);
+        queryMetrics.recordBytes(body.count);
+        queryMetrics.recordRecords(recordCount);
+        return recordCount;
+    }
+
+    /**
+     * Returns the cached reader for a record class. Readers are immutable and thread-safe, so one is built per class
+     * and reused for every page.
+     */
+    private ObjectReader getReader(Class<?> clazz) {
+        return readersByClass.computeIfAbsent(clazz, objectMapper::readerFor);
     }
 
     /**
@@ -167,17 +683,203 @@ public class ApiClient {
     }
 
     /**
-     * Builds a GET request with authorization headers.
+     * Builds a GET request. The authorization header is added by the {@link BearerTokenInterceptor}.
      *
      * @param url The URL to send the request to.
      * @return A configured {@link Request} object.
      */
     private Request buildGetRequest(String url) {
-        return new Request.Builder()
+        Request.Builder builder = new Request.Builder()
                 .url(url)
                 .get()
-                .header("Accept", "application/json")
-                .header("Authorization", String.format("Bearer %s", accessToken))
-                .build();
+                .header("Accept", "application/json");
+        if (!gzipEnabled) {
+            // OkHttp requests gzip and decompresses transparently unless an encoding is set explicitly
+            builder.header("Accept-Encoding", "identity");
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the bounded executor used for parallel page fetches. Threads are daemons and time out when idle,
+     * so clients that are simply dropped do not keep threads alive.
+     */
+    private static ExecutorService createPageFetchExecutor(int parallelism) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism,
+                PAGE_FETCH_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "api-client-page-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A single fetched page of records and the parsed "Content-Range" header describing its position.
+     */
+    private static class Page<T> {
+        private final List<T> records;
+        private final ContentRange contentRange;
+
+        private Page(List<T> records, ContentRange contentRange) {
+            this.records = records;
+            this.contentRange = contentRange;
+        }
+    }
+
+    /**
+     * Counts the bytes read from a response body.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Iterates over the records of a paginated endpoint, reading one record at a time from the current response and
+     * requesting the next page only when the current one is exhausted. The current response is closed when the last
+     * page is exhausted, when an error occurs or when the iterator is closed.
+     */
+    private class RecordIterator<T> implements Iterator<T>, Closeable {
+        private final String endpoint;
+        private final Class<T> clazz;
+        private final String filter;
+        private final QueryMetrics queryMetrics;
+
+        private int nextSkip = 0;
+        private int pageCount = 0;
+        private int pageRecordCount = 0;
+        private CountingInputStream currentBody;
+        private boolean lastPageOpened = false;
+        private boolean closed = false;
+        private Response currentResponse;
+        private MappingIterator<T> currentRecords;
+
+        private RecordIterator(String endpoint, Class<T> clazz, String filter) {
+            this.endpoint = endpoint;
+            this.clazz = clazz;
+            this.filter = filter;
+            this.queryMetrics = metrics.forQuery(endpoint, filter);
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (!closed) {
+                    if (currentRecords != null && currentRecords.hasNextValue()) {
+                        return true;
+                    }
+                    closeCurrentPage();
+                    if (lastPageOpened) {
+                        close();
+                    } else {
+                        openPage();
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                close();
+                throw new ApiClientException(String.format("Error fetching records: %s", e.getMessage()), e);
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                pageRecordCount++;
+                return currentRecords.nextValue();
+            } catch (IOException e) {
+                close();
+                throw new ApiClientException(String.format("Error fetching records: %s", e.getMessage()), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed && pageCount > 0) {
+                recordCall(endpoint, filter, pageCount);
+            }
+            closed = true;
+            closeCurrentPage();
+        }
+
+        private void openPage() throws IOException {
+            currentResponse = executeRequestWithRetry(buildGetRequest(buildUrl(endpoint, nextSkip, DEFAULT_PAGINATION_LIMIT, filter)), queryMetrics);
+            pageCount++;
+            validateResponse(currentResponse);
+            if (currentResponse.body() == null) {
+                throw new ApiClientException("Response body is null");
+            }
+
+            ContentRange contentRange = paginationHandler.parse(currentResponse.header("Content-Range"));
+            if (contentRange == null || !contentRange.hasMore()) {
+                lastPageOpened = true;
+            } else {
+                nextSkip = contentRange.getNextSkip();
+            }
+            currentBody = new CountingInputStream(currentResponse.body().byteStream());
+            currentRecords = getReader(clazz).readValues(currentBody);
+        }
+
+        /**
+         * Closes the current page. Its body size and record count are recorded, but not its parse time, since
+         * decoding is interleaved with the consumer of the stream.
+         */
+        private void closeCurrentPage() {
+            if (currentBody != null) {
+                queryMetrics.recordBytes(currentBody.count);
+                queryMetrics.recordRecords(pageRecordCount);
+                currentBody = null;
+                pageRecordCount = 0;
+            }
+            if (currentRecords != null) {
+                try {
+                    currentRecords.close();
+                } catch (IOException e) {
+                    logger.debug("Failed to close record iterator", e);
+                }
+                currentRecords = null;
+            }
+            if (currentResponse != null) {
+                currentResponse.close();
+                currentResponse = null;
+            }
+        }
     }
 }
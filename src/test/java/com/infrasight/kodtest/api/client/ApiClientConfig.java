@@ -0,0 +1,323 @@
+package com.infrasight.kodtest.api.client;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection and concurrency settings for an {@link ApiClient}.
+ * <p>
+ * The HTTP settings are applied to a copy of the {@link OkHttpClient} passed to the API client, which gets its own
+ * connection pool and dispatcher. The defaults match OkHttp's own, including its limit of 5 concurrent asynchronous
+ * requests per host, which queues the asynchronous and parallel modes of the API client behind each other. The
+ * {@link #latency()} and {@link #bulkThroughput()} presets raise that limit.
+ * </p>
+ * <p>
+ * Instances are immutable. Use {@link #builder()} or {@link #toBuilder()} to create one.
+ * </p>
+ */
+public class ApiClientConfig {
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    private static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(5);
+    private static final int DEFAULT_MAX_REQUESTS = 64;
+    private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+    private static final int DEFAULT_PAGE_FETCH_PARALLELISM = 1;
+    private static final double DEFAULT_INITIAL_RATE = 200.0;
+    private static final double DEFAULT_MIN_RATE = 1.0;
+    private static final double DEFAULT_MAX_RATE = 1000.0;
+
+    private final int maxIdleConnections;
+    private final Duration keepAlive;
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final boolean gzipEnabled;
+    private final boolean http2PriorKnowledge;
+    private final int pageFetchParallelism;
+    private final double initialRate;
+    private final double minRate;
+    private final double maxRate;
+
+    private ApiClientConfig(Builder builder) {
+        if (builder.maxIdleConnections < 0) {
+            throw new IllegalArgumentException("maxIdleConnections must not be negative");
+        }
+        if (builder.keepAlive.isNegative() || builder.keepAlive.isZero()) {
+            throw new IllegalArgumentException("keepAlive must be positive");
+        }
+        if (builder.maxRequestsPerHost < 1 || builder.maxRequestsPerHost > builder.maxRequests) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= maxRequestsPerHost <= maxRequests");
+        }
+        if (builder.pageFetchParallelism < 1) {
+            throw new IllegalArgumentException("pageFetchParallelism must be at least 1");
+        }
+        if (builder.minRate <= 0 || builder.minRate > builder.maxRate
+                || builder.initialRate < builder.minRate || builder.initialRate > builder.maxRate) {
+            throw new IllegalArgumentException("Rates must satisfy 0 < minRate <= initialRate <= maxRate");
+        }
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAlive = builder.keepAlive;
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.gzipEnabled = builder.gzipEnabled;
+        this.http2PriorKnowledge = builder.http2PriorKnowledge;
+        this.pageFetchParallelism = builder.pageFetchParallelism;
+        this.initialRate = builder.initialRate;
+        this.minRate = builder.minRate;
+        this.maxRate = builder.maxRate;
+    }
+
+    /**
+     * @return A builder initialized with the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The default settings: OkHttp's default pool and dispatcher limits, gzip, and sequential pagination.
+     */
+    public static ApiClientConfig defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Settings for interactive queries, which issue many small concurrent requests and want each answered quickly.
+     * Keeps enough idle connections for every concurrent request, allows 16 concurrent requests to the API host,
+     * fetches 4 pages at a time, and turns gzip off since the pages are too small to gain from compression.
+     *
+     * @return The latency preset.
+     */
+    public static ApiClientConfig latency() {
+        return builder()
+                .maxIdleConnections(16)
+                .maxRequests(64)
+                .maxRequestsPerHost(16)
+                .gzipEnabled(false)
+                .pageFetchParallelism(4)
+                .build();
+    }
+
+    /**
+     * Settings for full scans and bulk loads, which fetch many pages and care about total time rather than the time
+     * of a single request. Allows 32 concurrent requests to the API host, fetches 8 pages at a time, keeps gzip on,
+     * and starts the rate limiter at a higher rate.
+     *
+     * @return The bulk throughput preset.
+     */
+    public static ApiClientConfig bulkThroughput() {
+        return builder()
+                .maxIdleConnections(32)
+                .maxRequests(128)
+                .maxRequestsPerHost(32)
+                .gzipEnabled(true)
+                .pageFetchParallelism(8)
+                .rate(500.0, DEFAULT_MIN_RATE, 2000.0)
+                .build();
+    }
+
+    /**
+     * @return A builder initialized with the settings of this config.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .maxIdleConnections(maxIdleConnections)
+                .keepAlive(keepAlive)
+                .maxRequests(maxRequests)
+                .maxRequestsPerHost(maxRequestsPerHost)
+                .gzipEnabled(gzipEnabled)
+                .http2PriorKnowledge(http2PriorKnowledge)
+                .pageFetchParallelism(pageFetchParallelism)
+                .rate(initialRate, minRate, maxRate);
+    }
+
+    /**
+     * Creates a copy of an HTTP client with the connection pool, dispatcher and protocols of this config. Timeouts,
+     * interceptors and other settings of the given client are kept.
+     *
+     * @param client The client to copy.
+     * @return The configured copy.
+     */
+    public OkHttpClient newHttpClient(OkHttpClient client) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        OkHttpClient.Builder builder = client.newBuilder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher);
+        if (http2PriorKnowledge) {
+            builder.protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return A new rate limiter with the rates of this config.
+     */
+    public RateLimiter newRateLimiter() {
+        return new RateLimiter(initialRate, minRate, maxRate);
+    }
+
+    /**
+     * @return The maximum number of idle connections kept in the connection pool.
+     */
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * @return The time an idle connection is kept in the connection pool before it is closed.
+     */
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * @return The maximum number of concurrent asynchronous requests, across all hosts.
+     */
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * @return The maximum number of concurrent asynchronous requests to a single host.
+     */
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * @return {@code true} if gzip compressed responses are requested.
+     */
+    public boolean isGzipEnabled() {
+        return gzipEnabled;
+    }
+
+    /**
+     * @return {@code true} if requests are sent as cleartext HTTP/2 without an upgrade from HTTP/1.1.
+     */
+    public boolean isHttp2PriorKnowledge() {
+        return http2PriorKnowledge;
+    }
+
+    /**
+     * @return The maximum number of pages fetched concurrently by a blocking retrieval.
+     */
+    public int getPageFetchParallelism() {
+        return pageFetchParallelism;
+    }
+
+    /**
+     * Builder for {@link ApiClientConfig}. Every setting starts at its default.
+     */
+    public static class Builder {
+        private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+        private Duration keepAlive = DEFAULT_KEEP_ALIVE;
+        private int maxRequests = DEFAULT_MAX_REQUESTS;
+        private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+        private boolean gzipEnabled = true;
+        private boolean http2PriorKnowledge = false;
+        private int pageFetchParallelism = DEFAULT_PAGE_FETCH_PARALLELISM;
+        private double initialRate = DEFAULT_INITIAL_RATE;
+        private double minRate = DEFAULT_MIN_RATE;
+        private double maxRate = DEFAULT_MAX_RATE;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxIdleConnections The maximum number of idle connections kept in the connection pool. Should be at
+         *                           least the number of concurrent requests, or connections are closed and reopened.
+         * @return This builder.
+         */
+        public Builder maxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        /**
+         * @param keepAlive The time an idle connection is kept in the connection pool before it is closed.
+         * @return This builder.
+         */
+        public Builder keepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * @param maxRequests The maximum number of concurrent asynchronous requests, across all hosts.
+         * @return This builder.
+         */
+        public Builder maxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerHost The maximum number of concurrent asynchronous requests to a single host. Further
+         *                           requests are queued by the dispatcher.
+         * @return This builder.
+         */
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * @param gzipEnabled Whether gzip compressed responses are requested. When disabled, responses are requested
+         *                    without any content encoding.
+         * @return This builder.
+         */
+        public Builder gzipEnabled(boolean gzipEnabled) {
+            this.gzipEnabled = gzipEnabled;
+            return this;
+        }
+
+        /**
+         * @param http2PriorKnowledge Whether requests are sent as cleartext HTTP/2 without an upgrade from HTTP/1.1.
+         *                            Only enable this for servers known to accept it, as requests to other servers
+         *                            fail.
+         * @return This builder.
+         */
+        public Builder http2PriorKnowledge(boolean http2PriorKnowledge) {
+            this.http2PriorKnowledge = http2PriorKnowledge;
+            return this;
+        }
+
+        /**
+         * @param pageFetchParallelism The maximum number of pages fetched concurrently by a blocking retrieval. A
+         *                             value of 1 disables parallel pagination.
+         * @return This builder.
+         */
+        public Builder pageFetchParallelism(int pageFetchParallelism) {
+            this.pageFetchParallelism = pageFetchParallelism;
+            return this;
+        }
+
+        /**
+         * @param initialRate The initial number of requests per second permitted by the rate limiter.
+         * @param minRate     The lowest rate the rate limiter will decrease to.
+         * @param maxRate     The highest rate the rate limiter will increase to.
+         * @return This builder.
+         */
+        public Builder rate(double initialRate, double minRate, double maxRate) {
+            this.initialRate = initialRate;
+            this.minRate = minRate;
+            this.maxRate = maxRate;
+            return this;
+        }
+
+        /**
+         * @return The config.
+         * @throws IllegalArgumentException If a setting is out of range.
+         */
+        public ApiClientConfig build() {
+            return new ApiClientConfig(this);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.infrasight.kodtest.api.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter for retrying rate-limited requests, honoring the "Retry-After" header.
+ */
+public class BackoffPolicy {
+    private static final long DEFAULT_BASE_DELAY_MILLIS = 10;
+    private static final long DEFAULT_MAX_DELAY_MILLIS = 2000;
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Clock clock;
+
+    public BackoffPolicy() {
+        this(DEFAULT_BASE_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * @param baseDelayMillis The upper bound of the delay before the first retry.
+     * @param maxDelayMillis  The upper bound of the delay before any retry.
+     */
+    public BackoffPolicy(long baseDelayMillis, long maxDelayMillis) {
+        this(baseDelayMillis, maxDelayMillis, Clock.systemUTC());
+    }
+
+    /**
+     * @param baseDelayMillis The upper bound of the delay before the first retry.
+     * @param maxDelayMillis  The upper bound of the delay before any retry.
+     * @param clock           The clock an HTTP date in "Retry-After" is compared with.
+     */
+    public BackoffPolicy(long baseDelayMillis, long maxDelayMillis, Clock clock) {
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Calculates how long to wait before the next retry.
+     * <p>
+     * Without a "Retry-After" value the delay is drawn uniformly from zero up to {@code baseDelay * 2^(attempt - 1)},
+     * capped at the max delay, which spreads out retries from concurrent callers.
+     * </p>
+     *
+     * @param attempt          The number of the retry about to be made, starting at 1.
+     * @param retryAfterMillis The delay requested by the server, or {@code 0} if none.
+     * @return The delay in milliseconds.
+     */
+    public long getDelayMillis(int attempt, long retryAfterMillis) {
+        if (retryAfterMillis > 0) {
+            return retryAfterMillis;
+        }
+        int exponent = Math.min(Math.max(attempt - 1, 0), 30);
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << exponent);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Parses the "Retry-After" header, which is either a number of seconds or an HTTP date.
+     *
+     * @param retryAfter The "Retry-After" header value.
+     * @return The requested delay in milliseconds, or {@code 0} if the header is missing or invalid.
+     */
+    public long parseRetryAfterMillis(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0;
+        }
+
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // not delta-seconds, try an HTTP date
+        }
+        try {
+            ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(clock.instant(), retryAt.toInstant()).toMillis());
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.infrasight.kodtest.api.client;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects point lookups that arrive within a short window and loads them together with a single call to a batch
+ * function, in the style of a data loader.
+ * <p>
+ * A batch is dispatched when the window that started with its first key has passed, or as soon as it holds the
+ * maximum number of keys. Lookups of a key that is already waiting in the batch share its future, so every distinct
+ * key is loaded once per batch.
+ * </p>
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of loaded values.
+ */
+public class BatchLoader<K, V> {
+    private static final ScheduledExecutorService DISPATCH_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            daemonThreadFactory());
+
+    private final Function<Set<K>, CompletableFuture<Map<K, V>>> batchFunction;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+
+    private Map<K, CompletableFuture<V>> pendingBatch = new LinkedHashMap<>();
+
+    /**
+     * @param batchFunction Starts loading the values for a batch of distinct keys. Keys missing from the returned
+     *                      map are completed with {@code null}. Called from the dispatching thread, so it should
+     *                      not block.
+     * @param batchWindow   The time to wait for more keys after the first key of a batch arrives.
+     * @param maxBatchSize  The number of keys at which a batch is dispatched without waiting for the window to pass.
+     */
+    public BatchLoader(Function<Set<K>, CompletableFuture<Map<K, V>>> batchFunction, Duration batchWindow,
+                       int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        this.batchFunction = batchFunction;
+        this.batchWindowNanos = batchWindow.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Adds a key to the current batch.
+     *
+     * @param key The key to load.
+     * @return A future completed with the loaded value, or exceptionally with the exception the batch failed with.
+     */
+    public CompletableFuture<V> load(K key) {
+        Map<K, CompletableFuture<V>> fullBatch = null;
+        CompletableFuture<V> result;
+        synchronized (this) {
+            result = pendingBatch.get(key);
+            if (result != null) {
+                return result;
+            }
+
+            result = new CompletableFuture<>();
+            pendingBatch.put(key, result);
+            if (pendingBatch.size() >= maxBatchSize) {
+                fullBatch = takePendingBatch();
+            } else if (pendingBatch.size() == 1) {
+                Map<K, CompletableFuture<V>> batch = pendingBatch;
+                DISPATCH_SCHEDULER.schedule(() -> dispatchIfPending(batch), batchWindowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return result;
+    }
+
+    /**
+     * Dispatches a batch when its window has passed, unless it has already been dispatched because it became full.
+     */
+    private void dispatchIfPending(Map<K, CompletableFuture<V>> batch) {
+        synchronized (this) {
+            if (pendingBatch != batch) {
+                return;
+            }
+            takePendingBatch();
+        }
+        dispatch(batch);
+    }
+
+    private Map<K, CompletableFuture<V>> takePendingBatch() {
+        Map<K, CompletableFuture<V>> batch = pendingBatch;
+        pendingBatch = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        CompletableFuture<Map<K, V>> loadedValues;
+        try {
+            loadedValues = batchFunction.apply(Collections.unmodifiableSet(batch.keySet()));
+        } catch (RuntimeException e) {
+            loadedValues = CompletableFuture.failedFuture(e);
+        }
+
+        loadedValues.whenComplete((values, throwable) -> {
+            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+                if (throwable == null) {
+                    entry.getValue().complete(values.get(entry.getKey()));
+                } else {
+                    entry.getValue().completeExceptionally(throwable instanceof CompletionException
+                            && throwable.getCause() != null ? throwable.getCause() : throwable);
+                }
+            }
+        });
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        return runnable -> {
+            Thread thread = new Thread(runnable, "batch-loader-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
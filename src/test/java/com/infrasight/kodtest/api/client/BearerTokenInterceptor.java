@@ -0,0 +1,64 @@
+package com.infrasight.kodtest.api.client;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * Adds the bearer token of a {@link TokenProvider} to every request, and retries a request once with a renewed
+ * token if the API responds with 401 (Unauthorized).
+ */
+public class BearerTokenInterceptor implements Interceptor {
+    private static final int UNAUTHORIZED = 401;
+
+    private final TokenProvider tokenProvider;
+
+    /**
+     * @param tokenProvider The source of tokens.
+     */
+    public BearerTokenInterceptor(TokenProvider tokenProvider) {
+        this.tokenProvider = tokenProvider;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        String token = getToken(false, null);
+        Response response = chain.proceed(withToken(chain.request(), token));
+        if (response.code() != UNAUTHORIZED) {
+            return response;
+        }
+
+        String renewedToken;
+        try {
+            renewedToken = getToken(true, token);
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+        if (renewedToken.equals(token)) {
+            return response;
+        }
+        response.close();
+        return chain.proceed(withToken(chain.request(), renewedToken));
+    }
+
+    /**
+     * Retrieves a token, reporting authentication failures as {@link IOException} so that OkHttp fails the call
+     * rather than the thread it runs on.
+     */
+    private String getToken(boolean afterRejection, String rejectedToken) throws IOException {
+        try {
+            return afterRejection ? tokenProvider.refreshAfterRejection(rejectedToken) : tokenProvider.getToken();
+        } catch (RuntimeException e) {
+            throw new IOException(String.format("Failed to obtain access token: %s", e.getMessage()), e);
+        }
+    }
+
+    private static Request withToken(Request request, String token) {
+        return request.newBuilder()
+                .header("Authorization", String.format("Bearer %s", token))
+                .build();
+    }
+}
@@ -0,0 +1,155 @@
+package com.infrasight.kodtest.api.client;
+
+import com.infrasight.kodtest.api.model.ApiRecord;
+import com.infrasight.kodtest.cache.CacheStats;
+import com.infrasight.kodtest.cache.LruRecordCache;
+import com.infrasight.kodtest.cache.RecordCache;
+import com.infrasight.kodtest.metrics.CallTally;
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link ApiClient} which caches the records returned by {@link #getRecords(String, Class, String)} and
+ * {@link #getRecordsAsync(String, Class, String)}, so that repeated queries cost a hash probe instead of an HTTP
+ * round-trip. The typed API clients use it like any other {@link ApiClient}.
+ * <p>
+ * Results are cached by endpoint and filter. Records from unfiltered scans are also cached by entity ID, under the
+ * same key as an {@code id=<id>} query, so a point lookup after a full scan is answered from the cache. Cached
+ * lists are unmodifiable and shared between callers. Streaming retrievals are never cached.
+ * </p>
+ * <p>
+ * An endpoint is expected to always be read with the same record type.
+ * </p>
+ */
+public class CachingApiClient extends ApiClient {
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final long DEFAULT_MAX_CACHED_RECORDS = 100_000;
+    private static final String ID_FILTER_PREFIX = "id=";
+
+    private final RecordCache<String, List<? extends ApiRecord>> recordCache;
+
+    /**
+     * Creates a caching API client with a cache of at most 100 000 records that expire after five minutes.
+     *
+     * @param client               The HTTP client used for all requests.
+     * @param apiBaseUrl           The base URL of the API, ending with a slash.
+     * @param accessToken          The bearer token used for authorization.
+     * @param pageFetchParallelism The maximum number of pages fetched concurrently.
+     */
+    public CachingApiClient(OkHttpClient client, String apiBaseUrl, String accessToken, int pageFetchParallelism) {
+        this(client, apiBaseUrl, accessToken, pageFetchParallelism,
+                newRecordCache(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_CACHED_RECORDS));
+    }
+
+    /**
+     * @param client               The HTTP client used for all requests.
+     * @param apiBaseUrl           The base URL of the API, ending with a slash.
+     * @param accessToken          The bearer token used for authorization.
+     * @param pageFetchParallelism The maximum number of pages fetched concurrently.
+     * @param recordCache          The cache of query results, keyed by endpoint and filter.
+     */
+    public CachingApiClient(OkHttpClient client, String apiBaseUrl, String accessToken, int pageFetchParallelism,
+                            RecordCache<String, List<? extends ApiRecord>> recordCache) {
+        super(client, apiBaseUrl, accessToken, pageFetchParallelism);
+        this.recordCache = recordCache;
+    }
+
+    /**
+     * Creates a caching API client with its own connection pool and dispatcher, and a cache of at most 100 000
+     * records that expire after five minutes.
+     *
+     * @param client      The HTTP client to copy for all requests.
+     * @param apiBaseUrl  The base URL of the API, ending with a slash.
+     * @param accessToken The bearer token used for authorization.
+     * @param config      The connection, concurrency and rate settings.
+     */
+    public CachingApiClient(OkHttpClient client, String apiBaseUrl, String accessToken, ApiClientConfig config) {
+        super(client, apiBaseUrl, accessToken, config);
+        this.recordCache = newRecordCache(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_CACHED_RECORDS);
+    }
+
+    /**
+     * Creates a caching API client which gets its tokens from a {@link TokenProvider}, with its own connection pool
+     * and dispatcher, and a cache of at most 100 000 records that expire after five minutes.
+     *
+     * @param client        The HTTP client to copy for all requests.
+     * @param apiBaseUrl    The base URL of the API, ending with a slash.
+     * @param tokenProvider The source of bearer tokens used for authorization.
+     * @param config        The connection, concurrency and rate settings.
+     */
+    public CachingApiClient(OkHttpClient client, String apiBaseUrl, TokenProvider tokenProvider, ApiClientConfig config) {
+        super(client, apiBaseUrl, tokenProvider, config);
+        this.recordCache = newRecordCache(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_CACHED_RECORDS);
+    }
+
+    /**
+     * Creates a cache of query results, weighed by their number of records plus one. The extra weight makes empty
+     * results, such as lookups of unknown IDs, count against the limit, so they are evicted like any other result.
+     *
+     * @param timeToLive       The time after which a cached result expires.
+     * @param maxCachedRecords The maximum total weight of all cached results.
+     * @return The cache.
+     */
+    public static RecordCache<String, List<? extends ApiRecord>> newRecordCache(Duration timeToLive, long maxCachedRecords) {
+        return new LruRecordCache<>(timeToLive, maxCachedRecords, records -> 1 + records.size());
+    }
+
+    @Override
+    protected <T extends ApiRecord> List<T> getRecords(String endpoint, Class<T> clazz, String filter) {
+        List<? extends ApiRecord> records = recordCache.get(cacheKey(endpoint, filter),
+                key -> cacheRecordsById(endpoint, filter, super.getRecords(endpoint, clazz, filter)),
+                CallTally::recordCacheHit);
+        return castRecords(records);
+    }
+
+    @Override
+    protected <T extends ApiRecord> CompletableFuture<List<T>> getRecordsAsync(String endpoint, Class<T> clazz, String filter) {
+        return recordCache.getAsync(cacheKey(endpoint, filter),
+                        key -> super.getRecordsAsync(endpoint, clazz, filter)
+                                .thenApply(records -> cacheRecordsById(endpoint, filter, records)))
+                .thenApply(CachingApiClient::castRecords);
+    }
+
+    /**
+     * @return The statistics of the record cache.
+     */
+    public CacheStats getCacheStats() {
+        return recordCache.getStats();
+    }
+
+    /**
+     * Removes all cached records, so that following queries are sent to the API.
+     */
+    public void invalidateCache() {
+        recordCache.invalidateAll();
+    }
+
+    /**
+     * Caches each record of an unfiltered scan under its entity ID.
+     *
+     * @return The records as an unmodifiable list.
+     */
+    private List<? extends ApiRecord> cacheRecordsById(String endpoint, String filter, List<? extends ApiRecord> records) {
+        if (filter == null) {
+            for (ApiRecord record : records) {
+                if (record.getId() != null) {
+                    recordCache.put(cacheKey(endpoint, ID_FILTER_PREFIX + record.getId()), Collections.singletonList(record));
+                }
+            }
+        }
+        return Collections.unmodifiableList(records);
+    }
+
+    private static String cacheKey(String endpoint, String filter) {
+        return filter == null ? endpoint : endpoint + "?" + filter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends ApiRecord> List<T> castRecords(List<? extends ApiRecord> records) {
+        return (List<T>) records;
+    }
+}
@@ -0,0 +1,129 @@
+package com.infrasight.kodtest.api.client;
+
+/**
+ * Parsed value of a "Content-Range" header, either {@code items first-last/total} or {@code items *}{@code /total}
+ * when a page is empty.
+ */
+public final class ContentRange {
+    private static final String PREFIX = "items ";
+
+    private final int first;
+    private final int last;
+    private final int total;
+
+    private ContentRange(int first, int last, int total) {
+        this.first = first;
+        this.last = last;
+        this.total = total;
+    }
+
+    /**
+     * Parses a "Content-Range" header in a single pass without regular expressions.
+     *
+     * @param header The "Content-Range" header value.
+     * @return The parsed range, or {@code null} if the header is missing or invalid.
+     */
+    public static ContentRange parse(String header) {
+        if (header == null || !header.startsWith(PREFIX)) {
+            return null;
+        }
+
+        int position = PREFIX.length();
+        int length = header.length();
+        int first = -1;
+        int last = -1;
+        if (position < length && header.charAt(position) == '*') {
+            position++;
+        } else {
+            long parsedFirst = 0;
+            int start = position;
+            for (; position < length && isDigit(header.charAt(position)); position++) {
+                parsedFirst = parsedFirst * 10 + (header.charAt(position) - '0');
+                if (parsedFirst > Integer.MAX_VALUE) return null;
+            }
+            if (position == start || position >= length || header.charAt(position) != '-') return null;
+            position++;
+
+            long parsedLast = 0;
+            start = position;
+            for (; position < length && isDigit(header.charAt(position)); position++) {
+                parsedLast = parsedLast * 10 + (header.charAt(position) - '0');
+                if (parsedLast > Integer.MAX_VALUE) return null;
+            }
+            if (position == start || parsedLast < parsedFirst) return null;
+            first = (int) parsedFirst;
+            last = (int) parsedLast;
+        }
+
+        if (position >= length || header.charAt(position) != '/') return null;
+        position++;
+
+        long total = 0;
+        int start = position;
+        for (; position < length && isDigit(header.charAt(position)); position++) {
+            total = total * 10 + (header.charAt(position) - '0');
+            if (total > Integer.MAX_VALUE) return null;
+        }
+        if (position == start || position != length) return null;
+
+        return new ContentRange(first, last, (int) total);
+    }
+
+    /**
+     * @return {@code true} if the page contained no items ({@code items *}{@code /total}).
+     */
+    public boolean isEmpty() {
+        return first < 0;
+    }
+
+    /**
+     * @return The index of the first item in the page, or {@code -1} if the page is empty.
+     */
+    public int getFirst() {
+        return first;
+    }
+
+    /**
+     * @return The index of the last item in the page, or {@code -1} if the page is empty.
+     */
+    public int getLast() {
+        return last;
+    }
+
+    /**
+     * @return The total number of items available.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The number of items in the page.
+     */
+    public int getPageSize() {
+        return isEmpty() ? 0 : last - first + 1;
+    }
+
+    /**
+     * @return The "skip" value of the page following this one.
+     */
+    public int getNextSkip() {
+        return isEmpty() ? total : last + 1;
+    }
+
+    /**
+     * @return {@code true} if more items are available after this page.
+     */
+    public boolean hasMore() {
+        return !isEmpty() && last + 1 < total;
+    }
+
+    @Override
+    public String toString() {
+        return PREFIX + (isEmpty() ? "*" : first + "-" + last) + "/" + total;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
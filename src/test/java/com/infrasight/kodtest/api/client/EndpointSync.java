@@ -0,0 +1,155 @@
+package com.infrasight.kodtest.api.client;
+
+import com.infrasight.kodtest.api.model.ApiRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps a local copy of all records of an endpoint up to date without rescanning the endpoint on every sync.
+ * <p>
+ * The API offers no change tracking, so changes are detected from what each request returns anyway. Every sync
+ * fetches the first page, whose "Content-Range" reports the current total, and a few more pages in round-robin
+ * order. A changed total means records were added or removed, which shifts every following page, so the endpoint is
+ * rescanned. Otherwise each fetched page is compared by checksum with the copy from the previous fetch, and only
+ * pages that differ are deserialized and replaced. With {@code n} pages and {@code k} pages per sync, an in-place
+ * change is therefore picked up within {@code n / k} syncs.
+ * </p>
+ *
+ * @param <T> The type of records of the endpoint.
+ */
+public class EndpointSync<T extends ApiRecord> {
+    private static final Logger logger = LoggerFactory.getLogger(EndpointSync.class);
+    private static final int REQUESTED_PAGE_SIZE = 250;
+
+    private final ApiClient apiClient;
+    private final String endpoint;
+    private final Class<T> clazz;
+    private final int pagesPerSync;
+
+    private int total = -1;
+    private int pageSize;
+    private List<List<T>> pages = new ArrayList<>();
+    private long[] pageChecksums = new long[0];
+    private int nextPageToVerify = 1;
+    private volatile List<T> records = Collections.emptyList();
+    private volatile long generation = 0;
+
+    /**
+     * @param apiClient    The API client used for all requests.
+     * @param endpoint     The relative API path of the records to keep up to date.
+     * @param clazz        The Class representing the type {@code T}, used for JSON deserialization.
+     * @param pagesPerSync The number of pages fetched by a sync that finds an unchanged total, including the first.
+     */
+    public EndpointSync(ApiClient apiClient, String endpoint, Class<T> clazz, int pagesPerSync) {
+        if (pagesPerSync < 1) {
+            throw new IllegalArgumentException("pagesPerSync must be at least 1");
+        }
+        this.apiClient = apiClient;
+        this.endpoint = endpoint;
+        this.clazz = clazz;
+        this.pagesPerSync = pagesPerSync;
+    }
+
+    /**
+     * @return The records as of the last sync, in the order they appear in the API. The list is never modified, a
+     * sync that finds changes replaces it.
+     */
+    public List<T> getRecords() {
+        return records;
+    }
+
+    /**
+     * @return The number of times the records have changed, starting at {@code 0} before the first sync. Callers
+     * that build on the records can compare generations to find out whether they are behind, even if the sync that
+     * changed the records was followed by a failing one.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Fetches the first page and the next pages due for verification, and applies any changes found.
+     * The first sync scans the whole endpoint.
+     *
+     * @return {@code true} if the records changed.
+     * @throws com.infrasight.kodtest.exception.ApiClientException If an error occurs during a request.
+     */
+    public synchronized boolean sync() {
+        RawPage firstPage = apiClient.fetchRawPage(endpoint, null, 0, pageSize > 0 ? pageSize : REQUESTED_PAGE_SIZE);
+        ContentRange contentRange = firstPage.getContentRange();
+        int currentTotal = contentRange == null ? 0 : contentRange.getTotal();
+        if (currentTotal != total) {
+            logger.debug("Total of {} changed from {} to {}, rescanning", endpoint, total, currentTotal);
+            rescan(firstPage);
+            return true;
+        }
+
+        boolean changed = false;
+        try {
+            changed = applyPage(0, firstPage);
+            int verifiedPages = Math.min(pagesPerSync - 1, pages.size() - 1);
+            for (int i = 0; i < verifiedPages; i++) {
+                int pageIndex = nextPageToVerify;
+                nextPageToVerify = nextPageToVerify + 1 < pages.size() ? nextPageToVerify + 1 : 1;
+                changed |= applyPage(pageIndex, apiClient.fetchRawPage(endpoint, null, pageIndex * pageSize, pageSize));
+            }
+        } finally {
+            // pages already replaced have their new checksums, so they must be published even if a later fetch fails
+            if (changed) {
+                publishRecords();
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Replaces all pages, starting with an already fetched first page.
+     */
+    private void rescan(RawPage firstPage) {
+        ContentRange contentRange = firstPage.getContentRange();
+        List<RawPage> rawPages = new ArrayList<>();
+        rawPages.add(firstPage);
+        if (contentRange != null && !contentRange.isEmpty()) {
+            pageSize = contentRange.getPageSize();
+            for (int skip = contentRange.getNextSkip(); skip < contentRange.getTotal(); skip += pageSize) {
+                rawPages.add(apiClient.fetchRawPage(endpoint, null, skip, pageSize));
+            }
+        }
+
+        total = contentRange == null ? 0 : contentRange.getTotal();
+        pages = new ArrayList<>();
+        pageChecksums = new long[rawPages.size()];
+        for (int i = 0; i < rawPages.size(); i++) {
+            pages.add(apiClient.parseRecords(clazz, rawPages.get(i)));
+            pageChecksums[i] = rawPages.get(i).getChecksum();
+        }
+        nextPageToVerify = 1;
+        publishRecords();
+    }
+
+    /**
+     * Replaces a page if its checksum differs from the previously fetched copy.
+     *
+     * @return {@code true} if the page changed.
+     */
+    private boolean applyPage(int pageIndex, RawPage page) {
+        if (page.getChecksum() == pageChecksums[pageIndex]) {
+            return false;
+        }
+        logger.debug("Page {} of {} changed", pageIndex, endpoint);
+        pages.set(pageIndex, apiClient.parseRecords(clazz, page));
+        pageChecksums[pageIndex] = page.getChecksum();
+        return true;
+    }
+
+    private void publishRecords() {
+        List<T> allRecords = new ArrayList<>(total);
+        pages.forEach(allRecords::addAll);
+        records = Collections.unmodifiableList(allRecords);
+        generation++;
+    }
+}
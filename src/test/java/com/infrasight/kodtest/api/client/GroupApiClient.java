@@ -4,6 +4,7 @@ import com.infrasight.kodtest.api.model.Group;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -41,12 +42,63 @@ public class GroupApiClient {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Asynchronously retrieves all group IDs from the API.
+     *
+     * @return a future completed with a set of all group IDs.
+     */
+    public CompletableFuture<Set<String>> getAllGroupIdsAsync() {
+        return getAllGroupsAsync().thenApply(groups -> groups.stream()
+                .map(Group::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Asynchronously retrieves the IDs of all active groups.
+     *
+     * @return a future completed with a set of group IDs
+     */
+    public CompletableFuture<Set<String>> getGroupIdsForActiveGroupsAsync() {
+        return getAllGroupsAsync().thenApply(groups -> groups.stream()
+                .filter(Group::isActive)
+                .map(Group::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Retrieves the total number of groups, with a single request.
+     *
+     * @return The number of groups reported by the API.
+     */
+    public int countGroups() {
+        return apiClient.countRecords(ENDPOINT, Group.class, null);
+    }
+
     /**
      * Fetches all groups from the API.
      *
      * @return A list of all groups.
      */
-    private List<Group> getAllGroups() {
+    public List<Group> getAllGroups() {
         return apiClient.getRecords(ENDPOINT, Group.class, null);
     }
+
+    /**
+     * Creates a sync which keeps a local copy of all groups up to date, see {@link EndpointSync}.
+     *
+     * @param pagesPerSync The number of pages fetched by each sync that finds an unchanged total.
+     * @return A new sync, which has not fetched anything yet.
+     */
+    public EndpointSync<Group> newSync(int pagesPerSync) {
+        return new EndpointSync<>(apiClient, ENDPOINT, Group.class, pagesPerSync);
+    }
+
+    /**
+     * Asynchronously fetches all groups from the API.
+     *
+     * @return A future completed with a list of all groups.
+     */
+    public CompletableFuture<List<Group>> getAllGroupsAsync() {
+        return apiClient.getRecordsAsync(ENDPOINT, Group.class, null);
+    }
 }
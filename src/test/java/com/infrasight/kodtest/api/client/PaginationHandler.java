@@ -1,13 +1,23 @@
 package com.infrasight.kodtest.api.client;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Handles API pagination logic based on the "Content-Range" header.
+ * <p>
+ * Callers on the per-page hot path should {@link #parse(String)} the header once and read every value from the
+ * resulting {@link ContentRange}. The {@code extract*} methods parse the header on each call.
+ * </p>
  */
 public class PaginationHandler {
-    private static final String PAGINATION_HEADER_PATTERN = "items (\\d+)-(\\d+)/(\\d+)";
+
+    /**
+     * Parses the "Content-Range" header.
+     *
+     * @param contentRange The "Content-Range" header value.
+     * @return The parsed range, or {@code null} if the header is missing or invalid.
+     */
+    public ContentRange parse(String contentRange) {
+        return ContentRange.parse(contentRange);
+    }
 
     /**
      * Determines if the response indicates no more paginated data.
@@ -26,10 +36,8 @@ public class PaginationHandler {
      * @return The total number of items available in the API, or {@code Integer.MAX_VALUE} if unavailable.
      */
     public int extractTotalItems(String contentRange) {
-        if (contentRange == null) return Integer.MAX_VALUE;
-
-        Matcher matcher = Pattern.compile(PAGINATION_HEADER_PATTERN).matcher(contentRange);
-        return matcher.matches() ? Integer.parseInt(matcher.group(3)) : Integer.MAX_VALUE;
+        ContentRange range = ContentRange.parse(contentRange);
+        return range != null ? range.getTotal() : Integer.MAX_VALUE;
     }
 
     /**
@@ -39,9 +47,22 @@ public class PaginationHandler {
      * @return The next "skip" value for pagination, or {@code Integer.MAX_VALUE} if the header is invalid.
      */
     public int extractNextSkip(String contentRange) {
-        if (contentRange == null) return Integer.MAX_VALUE;
+        ContentRange range = ContentRange.parse(contentRange);
+        return range != null && !range.isEmpty() ? range.getNextSkip() : Integer.MAX_VALUE;
+    }
 
-        Matcher matcher = Pattern.compile(PAGINATION_HEADER_PATTERN).matcher(contentRange);
-        return matcher.matches() ? Integer.parseInt(matcher.group(2)) + 1 : Integer.MAX_VALUE;
+    /**
+     * Extracts the number of items returned in the page described by the "Content-Range" header.
+     * <p>
+     * The server may cap the requested "take" value, so the actual page size is read from the header
+     * rather than assumed from the request.
+     * </p>
+     *
+     * @param contentRange The "Content-Range" header value.
+     * @return The number of items in the page, or {@code 0} if the header is missing or invalid.
+     */
+    public int extractPageSize(String contentRange) {
+        ContentRange range = ContentRange.parse(contentRange);
+        return range != null ? range.getPageSize() : 0;
     }
 }
@@ -0,0 +1,136 @@
+package com.infrasight.kodtest.api.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter with AIMD (additive increase, multiplicative decrease) rate discovery.
+ * <p>
+ * One instance is shared by every caller of an {@link ApiClient}. Each request reserves a token before it is sent.
+ * Successful responses slowly raise the permitted rate, while rate-limited (429) responses cut it. Cuts are applied at
+ * most once per cool-down period, so a burst of 429s caused by a single overshoot only halves the rate once.
+ * </p>
+ */
+public class RateLimiter {
+    private static final double DEFAULT_INITIAL_RATE = 200.0;
+    private static final double DEFAULT_MIN_RATE = 1.0;
+    private static final double DEFAULT_MAX_RATE = 1000.0;
+    private static final double ADDITIVE_INCREASE = 5.0;
+    private static final double MULTIPLICATIVE_DECREASE = 0.5;
+    private static final double MAX_BURST_SECONDS = 0.25;
+    private static final long DECREASE_COOL_DOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final double minRate;
+    private final double maxRate;
+    private final LongSupplier nanoClock;
+
+    private double rate;
+    private double availableTokens;
+    private long lastRefillNanos;
+    private long lastDecreaseNanos;
+    private long pausedUntilNanos;
+
+    public RateLimiter() {
+        this(DEFAULT_INITIAL_RATE, DEFAULT_MIN_RATE, DEFAULT_MAX_RATE);
+    }
+
+    /**
+     * @param initialRate The initial number of requests permitted per second.
+     * @param minRate     The lowest rate the limiter will decrease to.
+     * @param maxRate     The highest rate the limiter will increase to.
+     */
+    public RateLimiter(double initialRate, double minRate, double maxRate) {
+        this(initialRate, minRate, maxRate, System::nanoTime);
+    }
+
+    /**
+     * @param initialRate The initial number of requests permitted per second.
+     * @param minRate     The lowest rate the limiter will decrease to.
+     * @param maxRate     The highest rate the limiter will increase to.
+     * @param nanoClock   The source of the current time in nanoseconds.
+     */
+    public RateLimiter(double initialRate, double minRate, double maxRate, LongSupplier nanoClock) {
+        if (minRate <= 0 || minRate > maxRate || initialRate < minRate || initialRate > maxRate) {
+            throw new IllegalArgumentException("Rates must satisfy 0 < minRate <= initialRate <= maxRate");
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.nanoClock = nanoClock;
+        this.rate = initialRate;
+        this.availableTokens = 1;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.lastDecreaseNanos = lastRefillNanos - DECREASE_COOL_DOWN_NANOS;
+        this.pausedUntilNanos = lastRefillNanos;
+    }
+
+    /**
+     * Reserves a token for one request without blocking.
+     *
+     * @return The number of nanoseconds the caller must wait before sending the request, {@code 0} if it may be sent
+     * immediately.
+     */
+    public synchronized long reserve() {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        availableTokens -= 1;
+
+        long tokenWaitNanos = availableTokens >= 0 ? 0 : (long) (-availableTokens / rate * TimeUnit.SECONDS.toNanos(1));
+        return Math.max(tokenWaitNanos, pausedUntilNanos - now);
+    }
+
+    /**
+     * Reserves a token for one request and blocks until the request may be sent.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Records a successful response, additively increasing the permitted rate.
+     */
+    public synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + ADDITIVE_INCREASE);
+    }
+
+    /**
+     * Records a rate-limited response, multiplicatively decreasing the permitted rate unless it was already
+     * decreased within the cool-down period.
+     *
+     * @param retryAfterMillis The delay requested by the server through "Retry-After", or {@code 0} if none. All
+     *                         callers are paused for this long.
+     */
+    public synchronized void onThrottled(long retryAfterMillis) {
+        long now = nanoClock.getAsLong();
+        refill(now);
+        if (now - lastDecreaseNanos >= DECREASE_COOL_DOWN_NANOS) {
+            rate = Math.max(minRate, rate * MULTIPLICATIVE_DECREASE);
+            availableTokens = Math.min(availableTokens, getCapacity());
+            lastDecreaseNanos = now;
+        }
+        if (retryAfterMillis > 0) {
+            pausedUntilNanos = Math.max(pausedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+        }
+    }
+
+    /**
+     * @return The number of requests currently permitted per second.
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        availableTokens = Math.min(getCapacity(), availableTokens + elapsedSeconds * rate);
+        lastRefillNanos = now;
+    }
+
+    private double getCapacity() {
+        return Math.max(1, rate * MAX_BURST_SECONDS);
+    }
+}
@@ -0,0 +1,38 @@
+package com.infrasight.kodtest.api.client;
+
+import java.util.zip.CRC32C;
+
+/**
+ * A single page of an API response that has not been deserialized, identified by a checksum of its body.
+ */
+public final class RawPage {
+    private final byte[] body;
+    private final ContentRange contentRange;
+    private final long checksum;
+
+    public RawPage(byte[] body, ContentRange contentRange) {
+        this.body = body;
+        this.contentRange = contentRange;
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        this.checksum = (long) body.length << 32 | crc.getValue();
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @return The parsed "Content-Range" header of the page, or {@code null} if it was missing or invalid.
+     */
+    public ContentRange getContentRange() {
+        return contentRange;
+    }
+
+    /**
+     * @return The CRC-32C of the body, combined with its length. Pages with different checksums differ.
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+}
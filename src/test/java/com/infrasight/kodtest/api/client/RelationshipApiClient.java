@@ -3,18 +3,117 @@ package com.infrasight.kodtest.api.client;
 import com.infrasight.kodtest.api.model.Relationship;
 import com.infrasight.kodtest.exception.RelationshipApiClientException;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * API client for fetching Relationship-related data from the API.
  */
-public class RelationshipApiClient {
+public class RelationshipApiClient implements RelationshipLookup {
     private static final String ENDPOINT = "relationships";
+    private static final String PARAM_MEMBER_ID = "memberId";
+    private static final String PARAM_MANAGED_ID = "managedId";
+    private static final String PARAM_OBJECT_TYPE = "objectType";
+    private static final String OBJECT_TYPE_GROUP_MEMBER = "GroupMember";
+    private static final String OBJECT_TYPE_MANAGER_FOR = "ManagerFor";
+    private static final int MAX_BATCH_SIZE = 250;
+    // a scan of one relationship type is a few dozen pages, cheaper than this many point lookups
+    private static final int SCAN_MIN_BATCH_SIZE = 25;
 
     private final ApiClient apiClient;
+    private final BatchLoader<String, List<Relationship>> relationshipsByMemberIdLoader;
+    private final BatchLoader<String, List<Relationship>> relationshipsByManagedIdLoader;
 
     public RelationshipApiClient(ApiClient apiClient) {
+        this(apiClient, Duration.ZERO);
+    }
+
+    /**
+     * Creates a relationship API client which batches concurrent lookups by member ID and by managed ID.
+     * <p>
+     * Lookups that arrive within the batch window are deduplicated and fetched together. Small batches are fetched
+     * with one point lookup per distinct ID, while larger batches are fetched with a single scan of the
+     * relationships of the wanted type.
+     * </p>
+     *
+     * @param apiClient   The API client used for all requests.
+     * @param batchWindow The time to collect lookups before fetching them. Zero disables batching.
+     */
+    public RelationshipApiClient(ApiClient apiClient, Duration batchWindow) {
         this.apiClient = apiClient;
+        if (batchWindow.isZero()) {
+            this.relationshipsByMemberIdLoader = null;
+            this.relationshipsByManagedIdLoader = null;
+        } else {
+            this.relationshipsByMemberIdLoader = new BatchLoader<>(memberIds -> loadRelationships(memberIds,
+                    PARAM_MEMBER_ID, OBJECT_TYPE_GROUP_MEMBER, Relationship::getMemberId), batchWindow, MAX_BATCH_SIZE);
+            this.relationshipsByManagedIdLoader = new BatchLoader<>(managedIds -> loadRelationships(managedIds,
+                    PARAM_MANAGED_ID, OBJECT_TYPE_MANAGER_FOR, Relationship::getManagedId), batchWindow, MAX_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Retrieves all relationships from the API.
+     *
+     * @return A list of all {@link Relationship} objects, of every relationship type.
+     */
+    public List<Relationship> getAllRelationships() {
+        return apiClient.getRecords(ENDPOINT, Relationship.class, null);
+    }
+
+    /**
+     * Asynchronously retrieves all relationships, requesting all pages after the first concurrently.
+     *
+     * @return A future completed with a list of all {@link Relationship} objects, of every relationship type.
+     */
+    public CompletableFuture<List<Relationship>> getAllRelationshipsAsync() {
+        return apiClient.getRecordsAsync(ENDPOINT, Relationship.class, null);
+    }
+
+    /**
+     * Retrieves all manager relationships, with a single scan filtered on the relationship type.
+     *
+     * @return A list of all {@link Relationship} objects which describe that an account manages another account.
+     */
+    public List<Relationship> getAllManagerRelationships() {
+        return apiClient.getRecords(ENDPOINT, Relationship.class, PARAM_OBJECT_TYPE + "=" + OBJECT_TYPE_MANAGER_FOR);
+    }
+
+    /**
+     * Streams all relationships lazily, fetching each page only when the previous one has been consumed.
+     * The stream should be closed if it is not consumed to the end.
+     *
+     * @return A lazy stream of all {@link Relationship} objects, of every relationship type.
+     */
+    public Stream<Relationship> streamAllRelationships() {
+        return apiClient.streamRecords(ENDPOINT, Relationship.class, null);
+    }
+
+    /**
+     * Creates a sync which keeps a local copy of all relationships up to date, see {@link EndpointSync}.
+     *
+     * @param pagesPerSync The number of pages fetched by each sync that finds an unchanged total.
+     * @return A new sync, which has not fetched anything yet.
+     */
+    public EndpointSync<Relationship> newSync(int pagesPerSync) {
+        return new EndpointSync<>(apiClient, ENDPOINT, Relationship.class, pagesPerSync);
+    }
+
+    /**
+     * Retrieves the total number of relationships of every type, with a single request.
+     *
+     * @return The number of relationships reported by the API.
+     */
+    public int countRelationships() {
+        return apiClient.countRecords(ENDPOINT, Relationship.class, null);
     }
 
     /**
@@ -24,7 +123,11 @@ public class RelationshipApiClient {
      * @return A list of {@link Relationship} objects associated with the given member ID.
      * If no relationships exist, an empty list is returned.
      */
+    @Override
     public List<Relationship> getRelationshipsByMemberId(String memberId) {
+        if (relationshipsByMemberIdLoader != null) {
+            return join(getRelationshipsByMemberIdAsync(memberId));
+        }
         return apiClient.getRecords(ENDPOINT, Relationship.class, "memberId=" + memberId);
     }
 
@@ -35,6 +138,7 @@ public class RelationshipApiClient {
      * @return A list of {@link Relationship} objects.
      * If no relationships exist, an empty list is returned.
      */
+    @Override
     public List<Relationship> getRelationshipsByGroupId(String groupId) {
         return apiClient.getRecords(ENDPOINT, Relationship.class, "groupId=" + groupId);
     }
@@ -47,7 +151,105 @@ public class RelationshipApiClient {
      * @throws RelationshipApiClientException If none or multiple relationships are found.
      */
     public Relationship getRelationshipsByManagedId(String managedId) {
+        if (relationshipsByManagedIdLoader != null) {
+            return join(getRelationshipsByManagedIdAsync(managedId));
+        }
         List<Relationship> relationships = apiClient.getRecords(ENDPOINT, Relationship.class, "managedId=" + managedId);
+        return requireSingleRelationship(relationships, managedId);
+    }
+
+    /**
+     * Asynchronously retrieves relationships associated with a given member ID.
+     *
+     * @param memberId The unique identifier of the member whose relationships should be retrieved.
+     * @return A future completed with the {@link Relationship} objects associated with the given member ID.
+     */
+    public CompletableFuture<List<Relationship>> getRelationshipsByMemberIdAsync(String memberId) {
+        if (relationshipsByMemberIdLoader != null) {
+            return relationshipsByMemberIdLoader.load(memberId)
+                    .thenApply(relationships -> relationships == null ? List.of() : relationships);
+        }
+        return apiClient.getRecordsAsync(ENDPOINT, Relationship.class, "memberId=" + memberId);
+    }
+
+    /**
+     * Asynchronously retrieves relationships for a given group ID.
+     *
+     * @param groupId The unique identifier of the group.
+     * @return A future completed with the {@link Relationship} objects for the given group ID.
+     */
+    public CompletableFuture<List<Relationship>> getRelationshipsByGroupIdAsync(String groupId) {
+        return apiClient.getRecordsAsync(ENDPOINT, Relationship.class, "groupId=" + groupId);
+    }
+
+    /**
+     * Asynchronously retrieves the relationship for a given managed account ID.
+     *
+     * @param managedId The account ID of an employee that is managed (by a specific manager.)
+     * @return A future completed with the {@link Relationship} associated with the given managed account ID, or
+     * completed exceptionally with a {@link RelationshipApiClientException} if none or multiple relationships are found.
+     */
+    public CompletableFuture<Relationship> getRelationshipsByManagedIdAsync(String managedId) {
+        if (relationshipsByManagedIdLoader != null) {
+            return relationshipsByManagedIdLoader.load(managedId).thenApply(relationships ->
+                    requireSingleRelationship(relationships == null ? List.of() : relationships, managedId));
+        }
+        return apiClient.getRecordsAsync(ENDPOINT, Relationship.class, "managedId=" + managedId)
+                .thenApply(relationships -> requireSingleRelationship(relationships, managedId));
+    }
+
+    /**
+     * Fetches the relationships for a batch of distinct IDs for a {@link BatchLoader}.
+     *
+     * @param ids        The distinct IDs of the batch.
+     * @param idField    The relationship field the IDs are matched against.
+     * @param objectType The type of relationships that have the field.
+     * @param idOf       Reads the field from a relationship.
+     * @return A future completed with the relationships found for each ID.
+     */
+    private CompletableFuture<Map<String, List<Relationship>>> loadRelationships(Set<String> ids, String idField,
+                                                                               String objectType,
+                                                                               Function<Relationship, String> idOf) {
+        if (ids.size() >= SCAN_MIN_BATCH_SIZE) {
+            return apiClient.getRecordsAsync(ENDPOINT, Relationship.class, PARAM_OBJECT_TYPE + "=" + objectType)
+                    .thenApply(relationships -> {
+                        Map<String, List<Relationship>> relationshipsById = new HashMap<>();
+                        for (Relationship relationship : relationships) {
+                            if (ids.contains(idOf.apply(relationship))) {
+                                relationshipsById.computeIfAbsent(idOf.apply(relationship), id -> new ArrayList<>())
+                                        .add(relationship);
+                            }
+                        }
+                        return relationshipsById;
+                    });
+        }
+
+        Map<String, CompletableFuture<List<Relationship>>> pendingRelationships = new HashMap<>();
+        for (String id : ids) {
+            pendingRelationships.put(id, apiClient.getRecordsAsync(ENDPOINT, Relationship.class, idField + "=" + id));
+        }
+        return CompletableFuture.allOf(pendingRelationships.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<String, List<Relationship>> relationshipsById = new HashMap<>();
+            pendingRelationships.forEach((id, relationships) -> relationshipsById.put(id, relationships.join()));
+            return relationshipsById;
+        });
+    }
+
+    /**
+     * Waits for a future, rethrowing the exception it completed with rather than a wrapping {@link CompletionException}.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Relationship requireSingleRelationship(List<Relationship> relationships, String managedId) {
         if (relationships.isEmpty()) {
             throw new RelationshipApiClientException(String.format("No Relationship found for managedId %s", managedId));
         } else if (relationships.size() > 1) {
@@ -0,0 +1,29 @@
+package com.infrasight.kodtest.api.client;
+
+import com.infrasight.kodtest.api.model.Relationship;
+
+import java.util.List;
+
+/**
+ * Lookup of group membership relationships, either directly from the API or from a local index.
+ */
+public interface RelationshipLookup {
+
+    /**
+     * Retrieves relationships associated with a given member ID.
+     *
+     * @param memberId The unique identifier of the member whose relationships should be retrieved.
+     * @return A list of {@link Relationship} objects associated with the given member ID.
+     * If no relationships exist, an empty list is returned.
+     */
+    List<Relationship> getRelationshipsByMemberId(String memberId);
+
+    /**
+     * Retrieves relationships for a given group ID.
+     *
+     * @param groupId The unique identifier of the group.
+     * @return A list of {@link Relationship} objects.
+     * If no relationships exist, an empty list is returned.
+     */
+    List<Relationship> getRelationshipsByGroupId(String groupId);
+}
@@ -0,0 +1,188 @@
+package com.infrasight.kodtest.api.client;
+
+import com.infrasight.kodtest.exception.AuthenticationApiClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches an access token and renews it before it expires, or when the API rejects it.
+ * <p>
+ * The API does not report when a token expires, so each token is assumed to be valid for a configured lifetime.
+ * Once a token is within the refresh margin of its expiry, callers still get it while a new one is fetched in the
+ * background. An expired or rejected token is renewed before callers get a token. Renewals are single-flight: all
+ * callers that need a new token at the same time share one authentication request.
+ * </p>
+ */
+public class TokenProvider {
+    private static final Logger logger = LoggerFactory.getLogger(TokenProvider.class);
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Supplier<String> authenticator;
+    private final long lifetimeNanos;
+    private final long refreshMarginNanos;
+    private final LongSupplier nanoClock;
+
+    private String token;
+    private long fetchedAtNanos;
+    private CompletableFuture<String> pendingRefresh;
+
+    /**
+     * @param authenticator Fetches a new token. Called on a background thread for proactive refreshes.
+     * @param lifetime      The time a token is assumed to be valid after it was fetched.
+     * @param refreshMargin The time before expiry at which a token is refreshed in the background.
+     */
+    public TokenProvider(Supplier<String> authenticator, Duration lifetime, Duration refreshMargin) {
+        this(authenticator, lifetime, refreshMargin, System::nanoTime);
+    }
+
+    /**
+     * @param authenticator Fetches a new token. Called on a background thread for proactive refreshes.
+     * @param lifetime      The time a token is assumed to be valid after it was fetched.
+     * @param refreshMargin The time before expiry at which a token is refreshed in the background.
+     * @param nanoClock     The source of the current time in nanoseconds.
+     */
+    public TokenProvider(Supplier<String> authenticator, Duration lifetime, Duration refreshMargin, LongSupplier nanoClock) {
+        if (lifetime.isNegative() || lifetime.isZero() || refreshMargin.isNegative() || refreshMargin.compareTo(lifetime) >= 0) {
+            throw new IllegalArgumentException("Durations must satisfy 0 <= refreshMargin < lifetime");
+        }
+        this.authenticator = authenticator;
+        this.lifetimeNanos = lifetime.toNanos();
+        this.refreshMarginNanos = refreshMargin.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Creates a provider which authenticates with a username and password.
+     *
+     * @param authenticationApiClient The client used to authenticate.
+     * @param username                The username to authenticate with.
+     * @param password                The password to authenticate with.
+     * @param lifetime                The time a token is assumed to be valid after it was fetched. Tokens are
+     *                                refreshed in the background during the last tenth of it.
+     * @return The provider. No token is fetched until one is first needed.
+     */
+    public static TokenProvider forCredentials(AuthenticationApiClient authenticationApiClient, String username,
+                                               String password, Duration lifetime) {
+        return new TokenProvider(() -> authenticationApiClient.authenticate(username, password), lifetime,
+                lifetime.dividedBy(10));
+    }
+
+    /**
+     * Creates a provider for a token that is never renewed.
+     *
+     * @param token The token.
+     * @return The provider.
+     */
+    public static TokenProvider fixed(String token) {
+        return new TokenProvider(() -> token, Duration.ofNanos(Long.MAX_VALUE), Duration.ZERO) {
+            @Override
+            public String getToken() {
+                return token;
+            }
+
+            @Override
+            public String refreshAfterRejection(String rejectedToken) {
+                return token;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a token that is not expired, fetching one if needed.
+     *
+     * @return The current token.
+     * @throws AuthenticationApiClientException If a new token is needed and authentication fails.
+     */
+    public String getToken() {
+        CompletableFuture<String> refresh;
+        synchronized (this) {
+            long ageNanos = nanoClock.getAsLong() - fetchedAtNanos;
+            if (token != null && ageNanos < lifetimeNanos) {
+                if (ageNanos >= lifetimeNanos - refreshMarginNanos) {
+                    startRefresh();
+                }
+                return token;
+            }
+            refresh = startRefresh();
+        }
+        return join(refresh);
+    }
+
+    /**
+     * Renews a token the API rejected. If the token has already been renewed since, the newer token is returned
+     * without authenticating again.
+     *
+     * @param rejectedToken The token the API rejected.
+     * @return A token to retry the rejected request with.
+     * @throws AuthenticationApiClientException If authentication fails.
+     */
+    public String refreshAfterRejection(String rejectedToken) {
+        CompletableFuture<String> refresh;
+        synchronized (this) {
+            if (token != null && !Objects.equals(token, rejectedToken)) {
+                return token;
+            }
+            refresh = startRefresh();
+        }
+        return join(refresh);
+    }
+
+    /**
+     * Starts a refresh unless one is already running. Must be called while holding the lock.
+     *
+     * @return The running refresh.
+     */
+    private CompletableFuture<String> startRefresh() {
+        if (pendingRefresh != null) {
+            return pendingRefresh;
+        }
+
+        CompletableFuture<String> refresh = new CompletableFuture<>();
+        pendingRefresh = refresh;
+        REFRESH_EXECUTOR.execute(() -> {
+            try {
+                String newToken = authenticator.get();
+                synchronized (this) {
+                    token = newToken;
+                    fetchedAtNanos = nanoClock.getAsLong();
+                    pendingRefresh = null;
+                }
+                refresh.complete(newToken);
+            } catch (RuntimeException e) {
+                logger.warn("Token refresh failed: {}", e.getMessage());
+                synchronized (this) {
+                    pendingRefresh = null;
+                }
+                refresh.completeExceptionally(e);
+            }
+        });
+        return refresh;
+    }
+
+    /**
+     * Waits for a future, rethrowing the exception it completed with rather than a wrapping {@link CompletionException}.
+     */
+    private static String join(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -21,6 +21,23 @@ public class Account extends ApiRecord {
     @SuppressWarnings("unused")
     private String lastName;
 
+    @SuppressWarnings("unused")
+    private Account() {
+        // for JSON deserialization
+    }
+
+    public Account(String id, String firstName, String lastName, int salary, String salaryCurrency,
+                   long employedSince, boolean active) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.salary = salary;
+        this.salaryCurrency = salaryCurrency;
+        this.employedSince = employedSince;
+        this.active = active;
+    }
+
+    @Override
     public String getId() {
         return id;
     }
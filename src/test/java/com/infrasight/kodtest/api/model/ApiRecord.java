@@ -4,4 +4,9 @@ package com.infrasight.kodtest.api.model;
  * Base class for API response model classes.
  */
 abstract public class ApiRecord {
+
+    /**
+     * @return The unique identifier of the record.
+     */
+    public abstract String getId();
 }
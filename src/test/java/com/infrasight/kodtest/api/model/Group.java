@@ -13,6 +13,18 @@ public class Group extends ApiRecord {
     @SuppressWarnings("unused")
     private String name;
 
+    @SuppressWarnings("unused")
+    private Group() {
+        // for JSON deserialization
+    }
+
+    public Group(String id, String name, boolean active) {
+        this.id = id;
+        this.name = name;
+        this.active = active;
+    }
+
+    @Override
     public String getId() {
         return id;
     }
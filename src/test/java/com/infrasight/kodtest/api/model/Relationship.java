@@ -14,7 +14,23 @@ public class Relationship extends ApiRecord {
     private String memberId;
     @SuppressWarnings("unused")
     private String accountId;
+    @SuppressWarnings("unused")
+    private String managedId;
 
+    @SuppressWarnings("unused")
+    private Relationship() {
+        // for JSON deserialization
+    }
+
+    public Relationship(String id, String groupId, String memberId, String accountId, String managedId) {
+        this.id = id;
+        this.groupId = groupId;
+        this.memberId = memberId;
+        this.accountId = accountId;
+        this.managedId = managedId;
+    }
+
+    @Override
     public String getId() {
         return id;
     }
@@ -31,6 +47,10 @@ public class Relationship extends ApiRecord {
         return accountId;
     }
 
+    public String getManagedId() {
+        return managedId;
+    }
+
     @Override
     public String toString() {
         return "Relationship{" +
@@ -38,6 +58,7 @@ public class Relationship extends ApiRecord {
                 ", groupId='" + groupId + '\'' +
                 ", memberId='" + memberId + '\'' +
                 ", accountId='" + accountId + '\'' +
+                ", managedId='" + managedId + '\'' +
                 '}';
     }
 
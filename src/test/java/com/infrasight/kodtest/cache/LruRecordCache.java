@@ -0,0 +1,293 @@
+package com.infrasight.kodtest.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link RecordCache} that expires values a fixed time after they were cached, and evicts the least recently used
+ * values when the total weight of all values exceeds a limit.
+ * <p>
+ * Lookups take a single lock around an access-ordered {@link LinkedHashMap}, which is held only for the hash probe
+ * and never while loading. Loads in progress are tracked separately, so concurrent misses for a key wait for one
+ * shared load.
+ * </p>
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of cached values.
+ */
+public class LruRecordCache<K, V> implements RecordCache<K, V> {
+    private final long timeToLiveNanos;
+    private final long maxWeight;
+    private final ToIntFunction<? super V> weigher;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, CachedValue<V>> cachedValues = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<K, CompletableFuture<V>> pendingLoads = new ConcurrentHashMap<>();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private long totalWeight = 0;
+
+    /**
+     * Creates a cache where every value has a weight of 1, so that the maximum weight is the maximum number of
+     * cached values.
+     *
+     * @param timeToLive The time after which a cached value expires.
+     * @param maxSize    The maximum number of cached values.
+     */
+    public LruRecordCache(Duration timeToLive, long maxSize) {
+        this(timeToLive, maxSize, value -> 1);
+    }
+
+    /**
+     * @param timeToLive The time after which a cached value expires.
+     * @param maxWeight  The maximum total weight of all cached values.
+     * @param weigher    Calculates the weight of a value, for example the number of records in a list.
+     */
+    public LruRecordCache(Duration timeToLive, long maxWeight, ToIntFunction<? super V> weigher) {
+        this(timeToLive, maxWeight, weigher, System::nanoTime);
+    }
+
+    /**
+     * @param timeToLive The time after which a cached value expires.
+     * @param maxWeight  The maximum total weight of all cached values.
+     * @param weigher    Calculates the weight of a value, for example the number of records in a list.
+     * @param nanoClock  The time source for expiry, in nanoseconds.
+     */
+    public LruRecordCache(Duration timeToLive, long maxWeight, ToIntFunction<? super V> weigher, LongSupplier nanoClock) {
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be at least 1");
+        }
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> loader, Runnable onHit) {
+        V value = lookup(key);
+        if (value != null) {
+            onHit.run();
+            return value;
+        }
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> pendingLoad = pendingLoads.putIfAbsent(key, load);
+        if (pendingLoad != null) {
+            return join(pendingLoad);
+        }
+
+        try {
+            // another caller may have completed its load between the lookup and registering this one
+            value = peek(key);
+            if (value == null) {
+                loadCount.increment();
+                value = loader.apply(key);
+                put(key, value);
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            loadFailureCount.increment();
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLoads.remove(key, load);
+        }
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<V>> loader) {
+        V value = lookup(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> pendingLoad = pendingLoads.putIfAbsent(key, load);
+        if (pendingLoad != null) {
+            return pendingLoad;
+        }
+
+        value = peek(key);
+        if (value != null) {
+            pendingLoads.remove(key, load);
+            load.complete(value);
+            return load;
+        }
+
+        loadCount.increment();
+        CompletableFuture<V> loaderResult;
+        try {
+            loaderResult = loader.apply(key);
+        } catch (RuntimeException e) {
+            loaderResult = CompletableFuture.failedFuture(e);
+        }
+        loaderResult.whenComplete((loadedValue, throwable) -> {
+            if (throwable == null) {
+                put(key, loadedValue);
+            } else {
+                loadFailureCount.increment();
+            }
+            pendingLoads.remove(key, load);
+            if (throwable == null) {
+                load.complete(loadedValue);
+            } else {
+                load.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause() : throwable);
+            }
+        });
+        return load;
+    }
+
+    @Override
+    public V getIfPresent(K key) {
+        return lookup(key);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cached values must not be null");
+        }
+        int weight = weigher.applyAsInt(value);
+        synchronized (cachedValues) {
+            CachedValue<V> replaced = cachedValues.remove(key);
+            if (replaced != null) {
+                totalWeight -= replaced.weight;
+            }
+            if (weight > maxWeight) {
+                // never fits, caching it would only evict everything else
+                return;
+            }
+            cachedValues.put(key, new CachedValue<>(value, weight, nanoClock.getAsLong() + timeToLiveNanos));
+            totalWeight += weight;
+            evictToMaxWeight();
+        }
+    }
+
+    @Override
+    public void invalidate(K key) {
+        synchronized (cachedValues) {
+            CachedValue<V> removed = cachedValues.remove(key);
+            if (removed != null) {
+                totalWeight -= removed.weight;
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        synchronized (cachedValues) {
+            cachedValues.clear();
+            totalWeight = 0;
+        }
+    }
+
+    @Override
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadCount.sum(), loadFailureCount.sum(), evictionCount.sum());
+    }
+
+    /**
+     * @return The number of values currently cached, including expired values not yet removed.
+     */
+    public int size() {
+        synchronized (cachedValues) {
+            return cachedValues.size();
+        }
+    }
+
+    /**
+     * Looks up a value and records the lookup as a hit or miss.
+     */
+    private V lookup(K key) {
+        V value = peek(key);
+        if (value != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Looks up a value without recording statistics, removing it if it has expired.
+     */
+    private V peek(K key) {
+        synchronized (cachedValues) {
+            CachedValue<V> cachedValue = cachedValues.get(key);
+            if (cachedValue == null) {
+                return null;
+            }
+            if (cachedValue.isExpired(nanoClock.getAsLong())) {
+                cachedValues.remove(key);
+                totalWeight -= cachedValue.weight;
+                evictionCount.increment();
+                return null;
+            }
+            return cachedValue.value;
+        }
+    }
+
+    /**
+     * Removes values in least recently used order until the total weight is within the limit. Must be called while
+     * holding the lock on {@code cachedValues}.
+     */
+    private void evictToMaxWeight() {
+        Iterator<Map.Entry<K, CachedValue<V>>> eldestFirst = cachedValues.entrySet().iterator();
+        while (totalWeight > maxWeight && eldestFirst.hasNext()) {
+            totalWeight -= eldestFirst.next().getValue().weight;
+            eldestFirst.remove();
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * Waits for a load started by another caller, rethrowing the exception it failed with.
+     */
+    private static <V> V join(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class CachedValue<V> {
+        private final V value;
+        private final int weight;
+        private final long expiresAtNanos;
+
+        private CachedValue(V value, int weight, long expiresAtNanos) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+}
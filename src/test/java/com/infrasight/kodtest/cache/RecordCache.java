@@ -0,0 +1,79 @@
+package com.infrasight.kodtest.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * A read-through cache. Values are loaded on a miss by a loader given with each lookup, and concurrent misses for
+ * the same key share a single load.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of cached values.
+ */
+public interface RecordCache<K, V> {
+
+    /**
+     * Returns the cached value for a key, loading and caching it on a miss. If the key is already being loaded by
+     * another caller, waits for that load instead of starting another.
+     *
+     * @param key    The key to look up.
+     * @param loader Loads the value on a miss. Exceptions thrown by the loader are rethrown to every waiting caller
+     *               and nothing is cached.
+     * @return The cached or loaded value.
+     */
+    default V get(K key, Function<? super K, ? extends V> loader) {
+        return get(key, loader, () -> {
+        });
+    }
+
+    /**
+     * Like {@link #get(Object, Function)}, but reports whether the lookup was a hit. Waiting for another caller's
+     * load is not a hit.
+     *
+     * @param key    The key to look up.
+     * @param loader Loads the value on a miss. Exceptions thrown by the loader are rethrown to every waiting caller
+     *               and nothing is cached.
+     * @param onHit  Called on the calling thread if the value was already cached.
+     * @return The cached or loaded value.
+     */
+    V get(K key, Function<? super K, ? extends V> loader, Runnable onHit);
+
+    /**
+     * Asynchronously returns the cached value for a key, loading and caching it on a miss. If the key is already
+     * being loaded, the returned future completes with that load.
+     *
+     * @param key    The key to look up.
+     * @param loader Starts loading the value on a miss. Nothing is cached if the load completes exceptionally.
+     * @return A future completed with the cached or loaded value.
+     */
+    CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletableFuture<V>> loader);
+
+    /**
+     * @param key The key to look up.
+     * @return The cached value, or {@code null} if the key is not cached or has expired.
+     */
+    V getIfPresent(K key);
+
+    /**
+     * Caches a value, replacing any previous value for the key.
+     *
+     * @param key   The key to cache the value under.
+     * @param value The value to cache.
+     */
+    void put(K key, V value);
+
+    /**
+     * @param key The key to remove from the cache.
+     */
+    void invalidate(K key);
+
+    /**
+     * Removes all keys from the cache. Loads in progress are not cancelled.
+     */
+    void invalidateAll();
+
+    /**
+     * @return A snapshot of the cache's statistics since it was created.
+     */
+    CacheStats getStats();
+}
@@ -0,0 +1,13 @@
+package com.infrasight.kodtest.exception;
+
+public class SnapshotException extends RuntimeException {
+
+    public SnapshotException(String message) {
+        super(message);
+    }
+
+    public SnapshotException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -2,7 +2,6 @@ package com.infrasight.kodtest.helper;
 
 import com.infrasight.kodtest.api.model.Account;
 
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.List;
@@ -29,15 +28,36 @@ public class AccountHelper {
     public static List<Account> filterAccountsByEmploymentDate(List<Account> accounts,
                                                                LocalDate employmentStartDate,
                                                                LocalDate employmentEndDate) {
+        long fromEpochSecond = startOfDayInEpochSeconds(employmentStartDate);
+        long toEpochSecond = startOfDayInEpochSeconds(employmentEndDate.plusDays(1));
         return accounts.stream()
-                .filter(account -> {
-                    LocalDate employmentDate = Instant.ofEpochSecond(account.getEmployedSince())
-                            .atZone(UTC_ZONE)
-                            .toLocalDate();
-
-                    return (employmentDate.isEqual(employmentStartDate) || employmentDate.isAfter(employmentStartDate)) &&
-                            (employmentDate.isEqual(employmentEndDate) || employmentDate.isBefore(employmentEndDate));
-                })
+                .filter(account -> account.getEmployedSince() >= fromEpochSecond && account.getEmployedSince() < toEpochSecond)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Checks whether an account's employment date falls within a date range, both ends inclusive.
+     * Can be used to filter a lazily streamed set of accounts.
+     *
+     * @param account             The account to check.
+     * @param employmentStartDate The start date of the range.
+     * @param employmentEndDate   The end date of the range.
+     * @return {@code true} if the account's employment date is within the range.
+     */
+    public static boolean isEmployedBetween(Account account, LocalDate employmentStartDate, LocalDate employmentEndDate) {
+        return account.getEmployedSince() >= startOfDayInEpochSeconds(employmentStartDate) &&
+                account.getEmployedSince() < startOfDayInEpochSeconds(employmentEndDate.plusDays(1));
+    }
+
+    /**
+     * Converts a date to the epoch second at which it starts in UTC. An employment date is within a range of dates
+     * exactly when the employment time is at or after the start of the first date and before the start of the day
+     * after the last date, so ranges can be checked without converting each account's employment time to a date.
+     *
+     * @param date The date to convert.
+     * @return The epoch second of midnight UTC at the start of the date.
+     */
+    public static long startOfDayInEpochSeconds(LocalDate date) {
+        return date.atStartOfDay(UTC_ZONE).toEpochSecond();
+    }
 }
@@ -2,16 +2,19 @@ package com.infrasight.kodtest.helper;
 
 import com.infrasight.kodtest.api.model.Account;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Utility class for salary-related calculations.
+ * <p>
+ * Conversion rates have at most two decimals, so a salary converted to SEK is an exact number of öre. Totals are
+ * summed in öre as {@code long} and only converted to kronor at the end, which needs no rounding per account.
+ * </p>
  */
 public class SalaryHelper {
+    private static final Map<String, Long> ORE_PER_UNIT = getCurrencyConversionInOre();
 
     private SalaryHelper() {
     }
@@ -21,28 +24,36 @@ public class SalaryHelper {
      *
      * @param accounts The list of accounts to process.
      * @return The total salary in SEK.
+     * @throws IllegalArgumentException If an account's salary currency has no known conversion rate.
      */
     public static double calculateTotalSalaryInSEK(List<Account> accounts) {
-        Map<String, Double> currencyConversion = getCurrencyConversion();
-        double totalSalary = 0;
+        long totalSalaryInOre = 0;
         for (Account account : accounts) {
-            int salary = account.getSalary();
-            totalSalary += roundUpToTwoDecimals(salary * currencyConversion.get(account.getSalaryCurrency()));
+            totalSalaryInOre += account.getSalary() * getOrePerUnit(account.getSalaryCurrency());
         }
-        return totalSalary;
+        return totalSalaryInOre / 100.0;
     }
 
-    private static Map<String, Double> getCurrencyConversion() {
-        Map<String, Double> currencyConversion = new HashMap<>();
-        currencyConversion.put("EUR", 11.0);
-        currencyConversion.put("DKK", 1.48);
-        currencyConversion.put("SEK", 1.0);
-        return currencyConversion;
+    /**
+     * Returns the conversion rate from a currency to SEK, in öre per unit of the currency.
+     *
+     * @param currency The currency code, for example EUR.
+     * @return The value of one unit of the currency in öre.
+     * @throws IllegalArgumentException If the currency has no known conversion rate.
+     */
+    public static long getOrePerUnit(String currency) {
+        Long orePerUnit = ORE_PER_UNIT.get(currency);
+        if (orePerUnit == null) {
+            throw new IllegalArgumentException(String.format("No conversion rate for currency %s", currency));
+        }
+        return orePerUnit;
     }
 
-    private static double roundUpToTwoDecimals(double number) {
-        return BigDecimal.valueOf(number)
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
+    private static Map<String, Long> getCurrencyConversionInOre() {
+        Map<String, Long> currencyConversion = new HashMap<>();
+        currencyConversion.put("EUR", 1100L);
+        currencyConversion.put("DKK", 148L);
+        currencyConversion.put("SEK", 100L);
+        return currencyConversion;
     }
 }
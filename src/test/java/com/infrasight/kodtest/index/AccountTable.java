@@ -0,0 +1,205 @@
+package com.infrasight.kodtest.index;
+
+import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.helper.AccountHelper;
+import com.infrasight.kodtest.helper.SalaryHelper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable columnar store of accounts for salary and employment analytics.
+ * <p>
+ * Each account is a row, and each field used by the analytics is a primitive array indexed by row: salaries as
+ * {@code int}s, salary currencies as {@code byte} codes into a small dictionary, employment times as {@code long}
+ * epoch seconds, and active flags as a {@link BitSet}. Filters return a {@link BitSet} of matching rows, which can be
+ * combined with {@link BitSet#and(BitSet)} and passed to the aggregates. The filter loops compare primitives without
+ * branches, so they compile to tight loops the JIT can vectorize.
+ * </p>
+ */
+public class AccountTable {
+    private static final int MAX_CURRENCIES = 256;
+
+    private final String[] ids;
+    private final int[] salaries;
+    private final byte[] currencyCodes;
+    private final long[] employedSince;
+    private final BitSet active;
+    private final List<String> currencies = new ArrayList<>();
+    private final long[] orePerUnitByCode;
+    private final Map<String, Integer> rowById = new HashMap<>();
+
+    /**
+     * @param accounts The accounts to store, one row per account in the given order.
+     * @throws IllegalArgumentException If the accounts use more than 256 currencies, or a currency without a known
+     *                                  conversion rate.
+     */
+    public AccountTable(List<Account> accounts) {
+        int rowCount = accounts.size();
+        ids = new String[rowCount];
+        salaries = new int[rowCount];
+        currencyCodes = new byte[rowCount];
+        employedSince = new long[rowCount];
+        active = new BitSet(rowCount);
+
+        Map<String, Integer> codeByCurrency = new HashMap<>();
+        for (int row = 0; row < rowCount; row++) {
+            Account account = accounts.get(row);
+            ids[row] = account.getId();
+            salaries[row] = account.getSalary();
+            currencyCodes[row] = (byte) codeByCurrency.computeIfAbsent(account.getSalaryCurrency(), this::addCurrency)
+                    .intValue();
+            employedSince[row] = account.getEmployedSince();
+            active.set(row, account.isActive());
+            rowById.putIfAbsent(account.getId(), row);
+        }
+
+        orePerUnitByCode = new long[MAX_CURRENCIES];
+        for (int code = 0; code < currencies.size(); code++) {
+            orePerUnitByCode[code] = SalaryHelper.getOrePerUnit(currencies.get(code));
+        }
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param row A row of the table.
+     * @return The ID of the account in the row.
+     */
+    public String getId(int row) {
+        return ids[row];
+    }
+
+    /**
+     * @return A new set of all rows.
+     */
+    public BitSet selectAll() {
+        BitSet rows = new BitSet(size());
+        rows.set(0, size());
+        return rows;
+    }
+
+    /**
+     * @return A new set of the rows of active accounts.
+     */
+    public BitSet selectActive() {
+        return (BitSet) active.clone();
+    }
+
+    /**
+     * Selects the rows of the given account IDs. IDs not in the table are ignored.
+     *
+     * @param accountIds The account IDs to select.
+     * @return A new set of the rows of the account IDs.
+     */
+    public BitSet selectIds(Collection<String> accountIds) {
+        BitSet rows = new BitSet(size());
+        for (String accountId : accountIds) {
+            Integer row = rowById.get(accountId);
+            if (row != null) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Selects the rows of accounts employed within a range of epoch seconds.
+     *
+     * @param fromEpochSecond The first epoch second of the range, inclusive.
+     * @param toEpochSecond   The end of the range, exclusive.
+     * @return A new set of the matching rows.
+     */
+    public BitSet selectEmployedBetween(long fromEpochSecond, long toEpochSecond) {
+        long[] words = new long[(size() + Long.SIZE - 1) / Long.SIZE];
+        for (int row = 0; row < employedSince.length; row++) {
+            long employed = employedSince[row];
+            // 1 when inside the range, without a branch per row
+            long matches = ((employed - fromEpochSecond) | (toEpochSecond - 1 - employed)) >>> (Long.SIZE - 1) ^ 1;
+            words[row >>> 6] |= matches << row;
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Selects the rows of accounts employed within a range of dates in UTC, with the same semantics as
+     * {@link AccountHelper#filterAccountsByEmploymentDate(List, LocalDate, LocalDate)}.
+     *
+     * @param employmentStartDate The first date of the range, inclusive.
+     * @param employmentEndDate   The last date of the range, inclusive.
+     * @return A new set of the matching rows.
+     */
+    public BitSet selectEmployedBetween(LocalDate employmentStartDate, LocalDate employmentEndDate) {
+        return selectEmployedBetween(AccountHelper.startOfDayInEpochSeconds(employmentStartDate),
+                AccountHelper.startOfDayInEpochSeconds(employmentEndDate.plusDays(1)));
+    }
+
+    /**
+     * Sums the salaries of the given rows converted to SEK, exactly, in öre.
+     *
+     * @param rows The rows to sum.
+     * @return The total salary in öre.
+     */
+    public long sumSalaryInOre(BitSet rows) {
+        long total = 0;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size(); row = rows.nextSetBit(row + 1)) {
+            total += salaries[row] * orePerUnitByCode[currencyCodes[row] & 0xFF];
+        }
+        return total;
+    }
+
+    /**
+     * Sums the salaries of the given rows converted to SEK, as
+     * {@link SalaryHelper#calculateTotalSalaryInSEK(List)} does for a list of accounts.
+     *
+     * @param rows The rows to sum.
+     * @return The total salary in SEK.
+     */
+    public double sumSalaryInSEK(BitSet rows) {
+        return sumSalaryInOre(rows) / 100.0;
+    }
+
+    /**
+     * Sums the salaries of the given rows per salary currency, without conversion.
+     *
+     * @param rows The rows to sum.
+     * @return The total salary in each currency that occurs in the rows, in the order the currencies first appear
+     * in the table.
+     */
+    public Map<String, Long> sumSalaryByCurrency(BitSet rows) {
+        long[] totalByCode = new long[currencies.size()];
+        boolean[] seenByCode = new boolean[currencies.size()];
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size(); row = rows.nextSetBit(row + 1)) {
+            int code = currencyCodes[row] & 0xFF;
+            totalByCode[code] += salaries[row];
+            seenByCode[code] = true;
+        }
+
+        Map<String, Long> totalByCurrency = new LinkedHashMap<>();
+        for (int code = 0; code < currencies.size(); code++) {
+            if (seenByCode[code]) {
+                totalByCurrency.put(currencies.get(code), totalByCode[code]);
+            }
+        }
+        return totalByCurrency;
+    }
+
+    private int addCurrency(String currency) {
+        if (currencies.size() == MAX_CURRENCIES) {
+            throw new IllegalArgumentException(String.format("More than %d salary currencies", MAX_CURRENCIES));
+        }
+        currencies.add(currency);
+        return currencies.size() - 1;
+    }
+}
@@ -0,0 +1,59 @@
+package com.infrasight.kodtest.index;
+
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.model.Group;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The IDs of all groups and of active groups, built together in one pass over a single group scan.
+ */
+public class GroupIndex {
+    private final Set<String> allGroupIds;
+    private final Set<String> activeGroupIds;
+
+    /**
+     * Builds the index.
+     *
+     * @param groups All groups.
+     */
+    public GroupIndex(Collection<Group> groups) {
+        Set<String> all = new HashSet<>(groups.size() * 4 / 3 + 1);
+        Set<String> active = new HashSet<>(groups.size() * 4 / 3 + 1);
+        for (Group group : groups) {
+            all.add(group.getId());
+            if (group.isActive()) {
+                active.add(group.getId());
+            }
+        }
+        this.allGroupIds = Collections.unmodifiableSet(all);
+        this.activeGroupIds = Collections.unmodifiableSet(active);
+    }
+
+    /**
+     * Loads an index from a single scan of all groups.
+     *
+     * @param groupApiClient The client used to fetch all groups.
+     * @return The loaded index.
+     */
+    public static GroupIndex load(GroupApiClient groupApiClient) {
+        return new GroupIndex(groupApiClient.getAllGroups());
+    }
+
+    /**
+     * @return The IDs of all groups, as {@link GroupApiClient#getAllGroupIds()} would return them.
+     */
+    public Set<String> getAllGroupIds() {
+        return allGroupIds;
+    }
+
+    /**
+     * @return The IDs of all active groups, as {@link GroupApiClient#getGroupIdsForActiveGroups()} would return them.
+     */
+    public Set<String> getActiveGroupIds() {
+        return activeGroupIds;
+    }
+}
@@ -0,0 +1,153 @@
+package com.infrasight.kodtest.index;
+
+import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.model.Relationship;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable in-memory index of the manager hierarchy, built from the manager relationships of a single scan.
+ * <p>
+ * Each account has at most one manager. The manager of an account and the direct reports of a manager are hash
+ * lookups, and transitive queries walk the index in memory. Relationships which are not manager relationships
+ * (such as group memberships) are ignored. Cycles in the hierarchy are tolerated: every query visits each account
+ * at most once.
+ * </p>
+ */
+public class ManagerIndex {
+    private final Map<String, String> managerIdByAccountId = new HashMap<>();
+    private final Map<String, List<String>> directReportIdsByManagerId;
+
+    /**
+     * Builds the index.
+     *
+     * @param relationships Relationships of any type. Only those with both an account ID and a managed ID are indexed.
+     * @throws IllegalArgumentException If an account has more than one manager.
+     */
+    public ManagerIndex(Collection<Relationship> relationships) {
+        Map<String, List<String>> directReports = new HashMap<>();
+        for (Relationship relationship : relationships) {
+            String managerId = relationship.getAccountId();
+            String managedId = relationship.getManagedId();
+            if (managerId == null || managedId == null) {
+                continue;
+            }
+            if (managerIdByAccountId.putIfAbsent(managedId, managerId) != null) {
+                throw new IllegalArgumentException(String.format("More than one manager found for managedId %s", managedId));
+            }
+            directReports.computeIfAbsent(managerId, id -> new ArrayList<>()).add(managedId);
+        }
+
+        Map<String, List<String>> frozen = new HashMap<>(directReports.size() * 4 / 3 + 1);
+        directReports.forEach((managerId, reportIds) -> frozen.put(managerId, Collections.unmodifiableList(reportIds)));
+        this.directReportIdsByManagerId = Collections.unmodifiableMap(frozen);
+    }
+
+    /**
+     * Loads an index from a single scan of the manager relationships.
+     *
+     * @param relationshipApiClient The client used to fetch the manager relationships.
+     * @return The loaded index.
+     */
+    public static ManagerIndex load(RelationshipApiClient relationshipApiClient) {
+        return new ManagerIndex(relationshipApiClient.getAllManagerRelationships());
+    }
+
+    /**
+     * @param accountId The ID of an account.
+     * @return The ID of the account's manager, or {@code null} if it has none.
+     */
+    public String getManagerId(String accountId) {
+        return managerIdByAccountId.get(accountId);
+    }
+
+    /**
+     * @param managerId The ID of a manager's account.
+     * @return The IDs of the accounts managed directly by the manager, or an empty list if there are none.
+     */
+    public List<String> getDirectReportIds(String managerId) {
+        return directReportIdsByManagerId.getOrDefault(managerId, Collections.emptyList());
+    }
+
+    /**
+     * Retrieves all accounts managed by a manager, directly or through other managers.
+     *
+     * @param managerId The ID of a manager's account.
+     * @return The IDs of all direct and indirect reports, excluding the manager.
+     */
+    public Set<String> getAllReportIds(String managerId) {
+        Set<String> reportIds = new LinkedHashSet<>();
+        Deque<String> pendingManagerIds = new ArrayDeque<>();
+        pendingManagerIds.add(managerId);
+        while (!pendingManagerIds.isEmpty()) {
+            for (String reportId : getDirectReportIds(pendingManagerIds.poll())) {
+                if (!reportId.equals(managerId) && reportIds.add(reportId)) {
+                    pendingManagerIds.add(reportId);
+                }
+            }
+        }
+        return reportIds;
+    }
+
+    /**
+     * @param managerId The ID of a manager's account.
+     * @return The number of accounts managed by the manager, directly or through other managers.
+     */
+    public int getSpanOfControl(String managerId) {
+        return getAllReportIds(managerId).size();
+    }
+
+    /**
+     * Retrieves the chain of command above an account.
+     *
+     * @param accountId The ID of an account.
+     * @return The IDs of the account's manager, the manager's manager and so on, nearest first. Ends at an account
+     * without a manager, or before an account that is already in the chain.
+     */
+    public List<String> getChainOfCommand(String accountId) {
+        List<String> chain = new ArrayList<>();
+        Set<String> visitedIds = new HashSet<>();
+        visitedIds.add(accountId);
+        String managerId = getManagerId(accountId);
+        while (managerId != null && visitedIds.add(managerId)) {
+            chain.add(managerId);
+            managerId = getManagerId(managerId);
+        }
+        return chain;
+    }
+
+    /**
+     * Counts the direct reports of each manager among the given accounts, in one pass.
+     *
+     * @param accountIds The IDs of the accounts to count.
+     * @return The number of the given accounts managed directly by each manager. Accounts without a manager are
+     * not counted.
+     */
+    public Map<String, Integer> countByManager(Collection<String> accountIds) {
+        Map<String, Integer> countsByManagerId = new HashMap<>();
+        for (String accountId : accountIds) {
+            String managerId = getManagerId(accountId);
+            if (managerId != null) {
+                countsByManagerId.merge(managerId, 1, Integer::sum);
+            }
+        }
+        return countsByManagerId;
+    }
+
+    /**
+     * @return The number of accounts that have a manager.
+     */
+    public int size() {
+        return managerIdByAccountId.size();
+    }
+}
@@ -0,0 +1,211 @@
+package com.infrasight.kodtest.index;
+
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.model.Relationship;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed index of which accounts belong to which groups, directly or through subgroups.
+ * <p>
+ * Account and group IDs are interned to dense integers, and each group's transitive account set is stored as a
+ * {@link BitSet}, as is each account's set of active groups. Intersections, unions and "which groups contain this
+ * account" are therefore word-parallel bit operations rather than string hash set lookups.
+ * </p>
+ * <p>
+ * The membership semantics match {@code GroupMemberAccountResolver}: members of active subgroups are included,
+ * inactive subgroups and their members are not, and any member ID which is not a group is treated as an account.
+ * </p>
+ */
+public class MembershipIndex {
+    private final Map<String, Integer> accountIndexById = new HashMap<>();
+    private final List<String> accountIds = new ArrayList<>();
+    private final Map<String, Integer> groupIndexById = new HashMap<>();
+    private final List<String> groupIds = new ArrayList<>();
+    private final BitSet[] accountsByGroup;
+    private final BitSet[] activeGroupsByAccount;
+
+    /**
+     * Builds the index.
+     *
+     * @param relationshipGraph The group membership relationships.
+     * @param allGroupIds       The IDs of all groups, used to tell groups and accounts apart.
+     * @param activeGroupIds    The IDs of all active groups.
+     */
+    public MembershipIndex(RelationshipGraph relationshipGraph, Set<String> allGroupIds, Set<String> activeGroupIds) {
+        Set<String> indexedGroupIds = new LinkedHashSet<>(allGroupIds);
+        indexedGroupIds.addAll(relationshipGraph.getGroupIds());
+        indexedGroupIds.forEach(groupId -> intern(groupId, groupIndexById, groupIds));
+
+        int groupCount = groupIds.size();
+        BitSet[] directAccounts = new BitSet[groupCount];
+        int[][] activeSubgroups = new int[groupCount][];
+        for (int group = 0; group < groupCount; group++) {
+            directAccounts[group] = new BitSet();
+            List<Integer> subgroups = new ArrayList<>();
+            for (Relationship relationship : relationshipGraph.getRelationshipsByGroupId(groupIds.get(group))) {
+                String memberId = relationship.getMemberId();
+                if (!allGroupIds.contains(memberId)) {
+                    directAccounts[group].set(intern(memberId, accountIndexById, accountIds));
+                } else if (activeGroupIds.contains(memberId)) {
+                    subgroups.add(groupIndexById.get(memberId));
+                }
+            }
+            activeSubgroups[group] = subgroups.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        accountsByGroup = new BitSet[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            accountsByGroup[group] = collectAccounts(group, directAccounts, activeSubgroups);
+        }
+
+        activeGroupsByAccount = new BitSet[accountIds.size()];
+        for (int account = 0; account < activeGroupsByAccount.length; account++) {
+            activeGroupsByAccount[account] = new BitSet(groupCount);
+        }
+        for (int group = 0; group < groupCount; group++) {
+            if (!activeGroupIds.contains(groupIds.get(group))) continue;
+            BitSet accounts = accountsByGroup[group];
+            for (int account = accounts.nextSetBit(0); account >= 0; account = accounts.nextSetBit(account + 1)) {
+                activeGroupsByAccount[account].set(group);
+            }
+        }
+    }
+
+    /**
+     * Builds an index from a relationship graph, fetching the group IDs with a single group scan.
+     *
+     * @param relationshipGraph The group membership relationships.
+     * @param groupApiClient    The client used to fetch all groups.
+     * @return The built index.
+     */
+    public static MembershipIndex load(RelationshipGraph relationshipGraph, GroupApiClient groupApiClient) {
+        GroupIndex groupIndex = GroupIndex.load(groupApiClient);
+        return new MembershipIndex(relationshipGraph, groupIndex.getAllGroupIds(), groupIndex.getActiveGroupIds());
+    }
+
+    /**
+     * Retrieves the IDs of all accounts in a group, including accounts in its active subgroups.
+     *
+     * @param groupId The ID of the group.
+     * @return The account IDs, or an empty set if the group is unknown.
+     */
+    public Set<String> getAccountIds(String groupId) {
+        return decode(getAccountBits(groupId), accountIds);
+    }
+
+    /**
+     * Retrieves the IDs of accounts which belong to every one of the given groups.
+     *
+     * @param wantedGroupIds The IDs of the groups to intersect.
+     * @return The account IDs in the intersection.
+     */
+    public Set<String> getAccountIdsInAllGroups(String... wantedGroupIds) {
+        return decode(intersect(wantedGroupIds), accountIds);
+    }
+
+    /**
+     * Counts the accounts which belong to every one of the given groups, without materializing their IDs.
+     *
+     * @param wantedGroupIds The IDs of the groups to intersect.
+     * @return The number of accounts in the intersection.
+     */
+    public int countAccountsInAllGroups(String... wantedGroupIds) {
+        return intersect(wantedGroupIds).cardinality();
+    }
+
+    /**
+     * Retrieves the IDs of accounts which belong to at least one of the given groups.
+     *
+     * @param wantedGroupIds The IDs of the groups to unite.
+     * @return The account IDs in the union.
+     */
+    public Set<String> getAccountIdsInAnyGroup(String... wantedGroupIds) {
+        BitSet union = new BitSet(accountIds.size());
+        for (String groupId : wantedGroupIds) {
+            union.or(getAccountBits(groupId));
+        }
+        return decode(union, accountIds);
+    }
+
+    /**
+     * Retrieves the IDs of all active groups that contain an account, directly or through subgroups.
+     *
+     * @param accountId The ID of the account.
+     * @return The group IDs, or an empty set if the account is not a member of any group.
+     */
+    public Set<String> getGroupIdsForAccount(String accountId) {
+        Integer account = accountIndexById.get(accountId);
+        return account == null ? Collections.emptySet() : decode(activeGroupsByAccount[account], groupIds);
+    }
+
+    /**
+     * @return The number of distinct accounts that belong to at least one group.
+     */
+    public int getAccountCount() {
+        return accountIds.size();
+    }
+
+    private BitSet intersect(String... wantedGroupIds) {
+        if (wantedGroupIds.length == 0) {
+            return new BitSet();
+        }
+        BitSet intersection = (BitSet) getAccountBits(wantedGroupIds[0]).clone();
+        for (int i = 1; i < wantedGroupIds.length && !intersection.isEmpty(); i++) {
+            intersection.and(getAccountBits(wantedGroupIds[i]));
+        }
+        return intersection;
+    }
+
+    private BitSet getAccountBits(String groupId) {
+        Integer group = groupIndexById.get(groupId);
+        return group == null ? new BitSet() : accountsByGroup[group];
+    }
+
+    /**
+     * Collects the accounts of a group and of every active subgroup reachable from it. Each subgroup is visited at
+     * most once, so cyclic hierarchies terminate.
+     */
+    private static BitSet collectAccounts(int group, BitSet[] directAccounts, int[][] activeSubgroups) {
+        BitSet accounts = (BitSet) directAccounts[group].clone();
+        BitSet visited = new BitSet(directAccounts.length);
+        Deque<Integer> pending = new ArrayDeque<>();
+        visited.set(group);
+        pending.push(group);
+        while (!pending.isEmpty()) {
+            for (int subgroup : activeSubgroups[pending.pop()]) {
+                if (!visited.get(subgroup)) {
+                    visited.set(subgroup);
+                    accounts.or(directAccounts[subgroup]);
+                    pending.push(subgroup);
+                }
+            }
+        }
+        return accounts;
+    }
+
+    private static int intern(String id, Map<String, Integer> indexById, List<String> ids) {
+        return indexById.computeIfAbsent(id, key -> {
+            ids.add(key);
+            return ids.size() - 1;
+        });
+    }
+
+    private static Set<String> decode(BitSet bits, List<String> ids) {
+        Set<String> decoded = new HashSet<>(bits.cardinality() * 4 / 3 + 1);
+        for (int index = bits.nextSetBit(0); index >= 0; index = bits.nextSetBit(index + 1)) {
+            decoded.add(ids.get(index));
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,96 @@
+package com.infrasight.kodtest.index;
+
+import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.client.RelationshipLookup;
+import com.infrasight.kodtest.api.model.Relationship;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable in-memory snapshot of all group membership relationships, indexed both by group ID and by member ID.
+ * <p>
+ * The graph is loaded once from a full scan of the relationships endpoint. Since it implements
+ * {@link RelationshipLookup}, the resolvers can traverse group hierarchies from memory instead of making one API call
+ * per visited group. Relationships which are not group memberships (such as manager relationships) are ignored.
+ * </p>
+ */
+public class RelationshipGraph implements RelationshipLookup {
+    private final Map<String, List<Relationship>> relationshipsByGroupId;
+    private final Map<String, List<Relationship>> relationshipsByMemberId;
+    private final int relationshipCount;
+
+    /**
+     * Builds a graph from the given relationships.
+     *
+     * @param relationships Relationships of any type. Only those with both a group ID and a member ID are indexed.
+     */
+    public RelationshipGraph(Collection<Relationship> relationships) {
+        Map<String, List<Relationship>> byGroupId = new HashMap<>();
+        Map<String, List<Relationship>> byMemberId = new HashMap<>();
+        int count = 0;
+        for (Relationship relationship : relationships) {
+            if (relationship.getGroupId() == null || relationship.getMemberId() == null) {
+                continue;
+            }
+            byGroupId.computeIfAbsent(relationship.getGroupId(), id -> new ArrayList<>()).add(relationship);
+            byMemberId.computeIfAbsent(relationship.getMemberId(), id -> new ArrayList<>()).add(relationship);
+            count++;
+        }
+        this.relationshipsByGroupId = freeze(byGroupId);
+        this.relationshipsByMemberId = freeze(byMemberId);
+        this.relationshipCount = count;
+    }
+
+    /**
+     * Loads a graph from a single full scan of the relationships endpoint.
+     *
+     * @param relationshipApiClient The client used to fetch all relationships.
+     * @return The loaded graph.
+     */
+    public static RelationshipGraph load(RelationshipApiClient relationshipApiClient) {
+        return new RelationshipGraph(relationshipApiClient.getAllRelationships());
+    }
+
+    @Override
+    public List<Relationship> getRelationshipsByMemberId(String memberId) {
+        return relationshipsByMemberId.getOrDefault(memberId, Collections.emptyList());
+    }
+
+    @Override
+    public List<Relationship> getRelationshipsByGroupId(String groupId) {
+        return relationshipsByGroupId.getOrDefault(groupId, Collections.emptyList());
+    }
+
+    /**
+     * @return The IDs of all groups which have at least one member.
+     */
+    public Set<String> getGroupIds() {
+        return relationshipsByGroupId.keySet();
+    }
+
+    /**
+     * @return The IDs of all members (accounts and groups) which belong to at least one group.
+     */
+    public Set<String> getMemberIds() {
+        return relationshipsByMemberId.keySet();
+    }
+
+    /**
+     * @return The number of group membership relationships in the graph.
+     */
+    public int size() {
+        return relationshipCount;
+    }
+
+    private static Map<String, List<Relationship>> freeze(Map<String, List<Relationship>> adjacency) {
+        Map<String, List<Relationship>> frozen = new HashMap<>(adjacency.size() * 4 / 3 + 1);
+        adjacency.forEach((id, relationships) -> frozen.put(id, Collections.unmodifiableList(relationships)));
+        return Collections.unmodifiableMap(frozen);
+    }
+}
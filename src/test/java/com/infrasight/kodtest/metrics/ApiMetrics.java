@@ -0,0 +1,91 @@
+package com.infrasight.kodtest.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request metrics of an API client, kept per kind of query: an endpoint, and the field it is filtered on if any.
+ * Queries on the same field share metrics whatever the filter value, so a thousand lookups by ID are one entry.
+ * <p>
+ * Metrics can be read as a {@link MetricsSnapshot} at any time, or exported periodically to a {@link MetricsSink}.
+ * </p>
+ */
+public class ApiMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(ApiMetrics.class);
+    private static final ScheduledExecutorService EXPORT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "api-metrics-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Comparator<QueryStats> QUERY_ORDER = Comparator.comparing(QueryStats::getEndpoint)
+            .thenComparing(QueryStats::getFilterField, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Map<String, QueryMetrics> metricsByQuery = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieves the metrics of a query, creating them on first use.
+     *
+     * @param endpoint The endpoint queried.
+     * @param filter   Optional filter on exact field value. Syntax is field=value. Only the field is used.
+     * @return The live metrics shared by all queries on the endpoint with the same filter field.
+     */
+    public QueryMetrics forQuery(String endpoint, String filter) {
+        String filterField = filter == null || filter.isBlank() ? null : getFilterField(filter);
+        String key = filterField == null ? endpoint : endpoint + "?" + filterField;
+        QueryMetrics metrics = metricsByQuery.get(key);
+        return metrics != null ? metrics : metricsByQuery.computeIfAbsent(key, ignored -> new QueryMetrics(endpoint, filterField));
+    }
+
+    /**
+     * @return An immutable snapshot of the metrics of every kind of query sent so far.
+     */
+    public MetricsSnapshot snapshot() {
+        List<QueryStats> queries = new ArrayList<>();
+        metricsByQuery.values().forEach(metrics -> queries.add(metrics.snapshot()));
+        queries.sort(QUERY_ORDER);
+        return new MetricsSnapshot(Instant.now(), queries);
+    }
+
+    /**
+     * Exports a snapshot to a sink periodically, in a background thread shared by all metrics. A sink that throws
+     * is logged and called again at the next interval.
+     *
+     * @param sink     Receives the snapshots.
+     * @param interval The time between exports.
+     * @return A handle which stops the exports when closed, after one final export.
+     */
+    public Closeable exportPeriodically(MetricsSink sink, Duration interval) {
+        Runnable export = () -> {
+            try {
+                sink.export(snapshot());
+            } catch (RuntimeException e) {
+                logger.warn("Metrics export failed: {}", e.getMessage());
+            }
+        };
+        ScheduledFuture<?> exports = EXPORT_SCHEDULER.scheduleAtFixedRate(export, interval.toMillis(),
+                interval.toMillis(), TimeUnit.MILLISECONDS);
+        return () -> {
+            if (exports.cancel(false)) {
+                export.run();
+            }
+        };
+    }
+
+    private static String getFilterField(String filter) {
+        int separator = filter.indexOf('=');
+        return separator < 0 ? filter : filter.substring(0, separator);
+    }
+}
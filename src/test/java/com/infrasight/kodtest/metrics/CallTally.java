@@ -0,0 +1,79 @@
+package com.infrasight.kodtest.metrics;
+
+/**
+ * Counts the API pages fetched and the cache hits of the blocking retrievals made by one thread between
+ * {@link #begin()} and {@link #end()}, so that a caller can attribute them to a unit of work of its own.
+ * <p>
+ * Pages fetched by asynchronous retrievals complete on other threads and are not counted.
+ * </p>
+ */
+public final class CallTally {
+    private static final ThreadLocal<CallTally> CURRENT = new ThreadLocal<>();
+
+    private final CallTally previous;
+    private int pageCount;
+    private int cacheHitCount;
+
+    private CallTally(CallTally previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Starts counting on the current thread. A tally that is already counting on the thread is paused until this
+     * one ends.
+     *
+     * @return The new tally.
+     */
+    public static CallTally begin() {
+        CallTally tally = new CallTally(CURRENT.get());
+        CURRENT.set(tally);
+        return tally;
+    }
+
+    /**
+     * Stops counting and resumes the tally this one paused, if any. Must be called on the thread that began it.
+     */
+    public void end() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Adds pages fetched by a retrieval on the current thread to its tally, if it has one.
+     *
+     * @param pages The number of pages fetched.
+     */
+    public static void recordPages(int pages) {
+        CallTally tally = CURRENT.get();
+        if (tally != null) {
+            tally.pageCount += pages;
+        }
+    }
+
+    /**
+     * Adds a retrieval answered from a cache on the current thread to its tally, if it has one.
+     */
+    public static void recordCacheHit() {
+        CallTally tally = CURRENT.get();
+        if (tally != null) {
+            tally.cacheHitCount++;
+        }
+    }
+
+    /**
+     * @return The number of API pages fetched.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * @return The number of retrievals answered from a cache.
+     */
+    public int getCacheHitCount() {
+        return cacheHitCount;
+    }
+}
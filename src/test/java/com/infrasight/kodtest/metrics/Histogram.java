@@ -0,0 +1,81 @@
+package com.infrasight.kodtest.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values, such as latencies in nanoseconds or sizes in bytes.
+ * <p>
+ * Buckets are laid out like an HDR histogram: values below 128 get one bucket each, and every following power of
+ * two is split into 64 equally wide buckets. Any recorded value is therefore reported with a relative error below
+ * 1.6 %, across the whole range of {@code long}, in a fixed array of 3712 counters. Recording is a few bit operations
+ * and atomic increments, so it can be called on every request.
+ * </p>
+ */
+public class Histogram {
+    private static final int LINEAR_BUCKET_COUNT = 128;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = LINEAR_BUCKET_COUNT + (Long.SIZE - 1 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * Records a value.
+     *
+     * @param value The value to record. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        counts.incrementAndGet(bucketOf(recorded));
+        count.increment();
+        sum.add(recorded);
+        min.accumulate(recorded);
+        max.accumulate(recorded);
+    }
+
+    /**
+     * Copies the current state of the histogram. Values recorded while the copy is made may be missing from some of
+     * its totals.
+     *
+     * @return An immutable snapshot of the histogram.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            bucketCounts[bucket] = counts.get(bucket);
+        }
+        long snapshotCount = count.sum();
+        return new HistogramSnapshot(bucketCounts, snapshotCount, sum.sum(),
+                snapshotCount == 0 ? 0 : min.get(), snapshotCount == 0 ? 0 : max.get());
+    }
+
+    /**
+     * @return The bucket holding a non-negative value.
+     */
+    static int bucketOf(long value) {
+        if (value < LINEAR_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return LINEAR_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return The highest value that falls in a bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_BUCKET_COUNT) / SUB_BUCKET_COUNT + 1;
+        long subBucket = SUB_BUCKET_COUNT + (bucket - LINEAR_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
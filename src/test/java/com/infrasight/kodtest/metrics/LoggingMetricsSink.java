@@ -0,0 +1,34 @@
+package com.infrasight.kodtest.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link MetricsSink} which logs one line per kind of query at info level.
+ */
+public class LoggingMetricsSink implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingMetricsSink.class);
+
+    @Override
+    public void export(MetricsSnapshot snapshot) {
+        for (QueryStats query : snapshot.getQueries()) {
+            logger.info("{}{}: {} requests, {} throttled, {} retries, {} failures, {} bytes, network p50/p99 {}/{} us, "
+                            + "parse p50/p99 {}/{} us, {} records/page, {} pages/call",
+                    query.getEndpoint(), query.getFilterField() == null ? "" : "?" + query.getFilterField(),
+                    query.getRequestCount(), query.getThrottledCount(), query.getRetryCount(), query.getFailureCount(),
+                    query.getBytesRead(),
+                    toMicros(query.getNetworkNanos().getValueAtPercentile(50)),
+                    toMicros(query.getNetworkNanos().getValueAtPercentile(99)),
+                    toMicros(query.getParseNanos().getValueAtPercentile(50)),
+                    toMicros(query.getParseNanos().getValueAtPercentile(99)),
+                    String.format("%.1f", query.getRecordsPerPage().getMean()),
+                    String.format("%.1f", query.getPagesPerCall().getMean()));
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
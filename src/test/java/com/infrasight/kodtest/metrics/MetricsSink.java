@@ -0,0 +1,13 @@
+package com.infrasight.kodtest.metrics;
+
+/**
+ * Receives snapshots exported by {@link ApiMetrics}, for example to log them or forward them to a monitoring system.
+ */
+public interface MetricsSink {
+    /**
+     * Exports a snapshot. Called from the exporting thread, so implementations should return quickly.
+     *
+     * @param snapshot The snapshot to export.
+     */
+    void export(MetricsSnapshot snapshot);
+}
@@ -0,0 +1,48 @@
+package com.infrasight.kodtest.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable snapshot of all {@link ApiMetrics} of an API client, with one {@link QueryStats} per kind of query.
+ */
+public final class MetricsSnapshot {
+    private final Instant takenAt;
+    private final List<QueryStats> queries;
+
+    MetricsSnapshot(Instant takenAt, List<QueryStats> queries) {
+        this.takenAt = takenAt;
+        this.queries = List.copyOf(queries);
+    }
+
+    /**
+     * @return The time the snapshot was taken.
+     */
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    /**
+     * @return The statistics of every kind of query sent so far, ordered by endpoint and filter field.
+     */
+    public List<QueryStats> getQueries() {
+        return queries;
+    }
+
+    /**
+     * Finds the statistics of one kind of query.
+     *
+     * @param endpoint    The endpoint queried.
+     * @param filterField The field the query is filtered on, or {@code null} for unfiltered queries.
+     * @return The statistics, or {@code null} if no such query has been sent.
+     */
+    public QueryStats getQuery(String endpoint, String filterField) {
+        for (QueryStats query : queries) {
+            if (query.getEndpoint().equals(endpoint) && Objects.equals(query.getFilterField(), filterField)) {
+                return query;
+            }
+        }
+        return null;
+    }
+}
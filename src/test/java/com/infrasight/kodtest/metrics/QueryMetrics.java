@@ -0,0 +1,108 @@
+package com.infrasight.kodtest.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live request metrics for one kind of query: an endpoint, and the field it is filtered on if any. Thread-safe and
+ * cheap enough to update on every request.
+ */
+public class QueryMetrics {
+    private final String endpoint;
+    private final String filterField;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final Histogram networkNanos = new Histogram();
+    private final Histogram parseNanos = new Histogram();
+    private final Histogram recordsPerPage = new Histogram();
+    private final Histogram pagesPerCall = new Histogram();
+
+    QueryMetrics(String endpoint, String filterField) {
+        this.endpoint = endpoint;
+        this.filterField = filterField;
+    }
+
+    /**
+     * Records an HTTP request sent to the API, whatever its outcome.
+     */
+    public void recordRequest() {
+        requestCount.increment();
+    }
+
+    /**
+     * Records a response with status 429 (Too Many Requests).
+     */
+    public void recordThrottled() {
+        throttledCount.increment();
+    }
+
+    /**
+     * Records that a request is sent again after a rate-limited response.
+     */
+    public void recordRetry() {
+        retryCount.increment();
+    }
+
+    /**
+     * Records a request that failed for good, after any retries.
+     */
+    public void recordFailure() {
+        failureCount.increment();
+    }
+
+    /**
+     * Records a successful response.
+     *
+     * @param networkNanos The time from sending the request until its response headers arrived.
+     */
+    public void recordResponse(long networkNanos) {
+        this.networkNanos.record(networkNanos);
+    }
+
+    /**
+     * Records the decoding of a response body.
+     *
+     * @param parseNanos The time spent reading and decoding the body.
+     */
+    public void recordParse(long parseNanos) {
+        this.parseNanos.record(parseNanos);
+    }
+
+    /**
+     * Records the size of a response body.
+     *
+     * @param bytes The number of (decompressed) body bytes read.
+     */
+    public void recordBytes(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    /**
+     * Records the number of records decoded from a page.
+     *
+     * @param records The number of records in the page.
+     */
+    public void recordRecords(int records) {
+        recordsPerPage.record(records);
+    }
+
+    /**
+     * Records a completed retrieval of all pages of a query.
+     *
+     * @param pages The number of pages fetched.
+     */
+    public void recordCall(int pages) {
+        pagesPerCall.record(pages);
+    }
+
+    /**
+     * @return An immutable snapshot of the metrics.
+     */
+    public QueryStats snapshot() {
+        return new QueryStats(endpoint, filterField, requestCount.sum(), throttledCount.sum(), retryCount.sum(),
+                failureCount.sum(), bytesRead.sum(), networkNanos.snapshot(), parseNanos.snapshot(),
+                recordsPerPage.snapshot(), pagesPerCall.snapshot());
+    }
+}
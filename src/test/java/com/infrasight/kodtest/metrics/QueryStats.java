@@ -0,0 +1,130 @@
+package com.infrasight.kodtest.metrics;
+
+/**
+ * An immutable snapshot of the {@link QueryMetrics} for one endpoint and filter field.
+ */
+public final class QueryStats {
+    private final String endpoint;
+    private final String filterField;
+    private final long requestCount;
+    private final long throttledCount;
+    private final long retryCount;
+    private final long failureCount;
+    private final long bytesRead;
+    private final HistogramSnapshot networkNanos;
+    private final HistogramSnapshot parseNanos;
+    private final HistogramSnapshot recordsPerPage;
+    private final HistogramSnapshot pagesPerCall;
+
+    QueryStats(String endpoint, String filterField, long requestCount, long throttledCount, long retryCount,
+               long failureCount, long bytesRead, HistogramSnapshot networkNanos, HistogramSnapshot parseNanos,
+               HistogramSnapshot recordsPerPage, HistogramSnapshot pagesPerCall) {
+        this.endpoint = endpoint;
+        this.filterField = filterField;
+        this.requestCount = requestCount;
+        this.throttledCount = throttledCount;
+        this.retryCount = retryCount;
+        this.failureCount = failureCount;
+        this.bytesRead = bytesRead;
+        this.networkNanos = networkNanos;
+        this.parseNanos = parseNanos;
+        this.recordsPerPage = recordsPerPage;
+        this.pagesPerCall = pagesPerCall;
+    }
+
+    /**
+     * @return The endpoint queried, e.g. "accounts".
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return The field the query is filtered on, e.g. "id", or {@code null} for unfiltered queries.
+     */
+    public String getFilterField() {
+        return filterField;
+    }
+
+    /**
+     * @return The number of HTTP requests sent, including retries.
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return The number of responses with status 429 (Too Many Requests).
+     */
+    public long getThrottledCount() {
+        return throttledCount;
+    }
+
+    /**
+     * @return The number of requests sent again after a rate-limited response.
+     */
+    public long getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * @return The number of requests that failed for good.
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return The total number of (decompressed) body bytes read from successful responses.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return The time from sending each successful request until its response headers arrived, in nanoseconds.
+     */
+    public HistogramSnapshot getNetworkNanos() {
+        return networkNanos;
+    }
+
+    /**
+     * @return The time spent reading and decoding each response body, in nanoseconds. Bodies are decoded as they
+     * are read, so this includes the transfer of any part of the body that had not arrived with the headers. Pages
+     * that are streamed or fetched without decoding are not included.
+     */
+    public HistogramSnapshot getParseNanos() {
+        return parseNanos;
+    }
+
+    /**
+     * @return The number of records in each fetched page.
+     */
+    public HistogramSnapshot getRecordsPerPage() {
+        return recordsPerPage;
+    }
+
+    /**
+     * @return The number of pages fetched by each retrieval of all pages of a query.
+     */
+    public HistogramSnapshot getPagesPerCall() {
+        return pagesPerCall;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryStats{" +
+                "endpoint='" + endpoint + '\'' +
+                ", filterField='" + filterField + '\'' +
+                ", requestCount=" + requestCount +
+                ", throttledCount=" + throttledCount +
+                ", retryCount=" + retryCount +
+                ", failureCount=" + failureCount +
+                ", bytesRead=" + bytesRead +
+                ", networkNanos={" + networkNanos + '}' +
+                ", parseNanos={" + parseNanos + '}' +
+                ", recordsPerPage={" + recordsPerPage + '}' +
+                ", pagesPerCall={" + pagesPerCall + '}' +
+                '}';
+    }
+}
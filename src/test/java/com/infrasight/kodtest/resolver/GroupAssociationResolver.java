@@ -1,7 +1,7 @@
 package com.infrasight.kodtest.resolver;
 
 import com.infrasight.kodtest.api.client.GroupApiClient;
-import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.client.RelationshipLookup;
 import com.infrasight.kodtest.api.model.Relationship;
 
 import java.util.HashSet;
@@ -9,13 +9,13 @@ import java.util.List;
 import java.util.Set;
 
 public class GroupAssociationResolver {
-    private final RelationshipApiClient relationshipApiClient;
+    private final RelationshipLookup relationshipLookup;
     private final GroupApiClient groupApiClient;
     private Set<String> idsOfActiveGroups;
 
-    public GroupAssociationResolver(RelationshipApiClient relationshipApiClient,
+    public GroupAssociationResolver(RelationshipLookup relationshipLookup,
                                     GroupApiClient groupApiClient) {
-        this.relationshipApiClient = relationshipApiClient;
+        this.relationshipLookup = relationshipLookup;
         this.groupApiClient = groupApiClient;
     }
 
@@ -30,7 +30,7 @@ public class GroupAssociationResolver {
      * @return a set of group IDs to which the member is directly assigned.
      */
     public Set<String> getIdsForMembersDirectGroups(String memberId) {
-        List<Relationship> relationshipsForVera = relationshipApiClient.getRelationshipsByMemberId(memberId);
+        List<Relationship> relationshipsForVera = relationshipLookup.getRelationshipsByMemberId(memberId);
 
         Set<String> groupIds = new HashSet<>();
         for (Relationship relationship : relationshipsForVera) {
@@ -54,8 +54,8 @@ public class GroupAssociationResolver {
      */
     public Set<String> getIdsForMembersDirectAndIndirectGroups(String memberId) {
         Set<String> discoveredGroupIds = new HashSet<>();
-        Set<String> idsOfActiveGroups = groupApiClient.getGroupIdsForActiveGroups();
-        List<Relationship> relationshipsForAccount = relationshipApiClient.getRelationshipsByMemberId(memberId);
+        Set<String> idsOfActiveGroups = getIdsOfActiveGroups();
+        List<Relationship> relationshipsForAccount = relationshipLookup.getRelationshipsByMemberId(memberId);
         for (Relationship relationship : relationshipsForAccount) {
             getIdsForMembersDirectAndIndirectGroupsRecursively(relationship, discoveredGroupIds, new HashSet<>(), idsOfActiveGroups);
         }
@@ -86,7 +86,7 @@ public class GroupAssociationResolver {
         discoveredGroupIds.add(groupId);
         processedMemberIds.add(relationship.getMemberId());
         if (!processedMemberIds.contains(groupId)) {
-            List<Relationship> groupRelationships = relationshipApiClient.getRelationshipsByMemberId(groupId);
+            List<Relationship> groupRelationships = relationshipLookup.getRelationshipsByMemberId(groupId);
             for (Relationship groupRelationship : groupRelationships) {
                 getIdsForMembersDirectAndIndirectGroupsRecursively(groupRelationship, discoveredGroupIds, processedMemberIds, idsOfActiveGroups);
             }
@@ -1,23 +1,69 @@
 package com.infrasight.kodtest.resolver;
 
 import com.infrasight.kodtest.api.client.GroupApiClient;
-import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.client.RelationshipLookup;
 import com.infrasight.kodtest.api.model.Relationship;
+import com.infrasight.kodtest.exception.ApiClientException;
+import com.infrasight.kodtest.index.GroupIndex;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
-public class GroupMemberAccountResolver {
-    private final RelationshipApiClient relationshipApiClient;
+public class GroupMemberAccountResolver implements AutoCloseable {
+    private static final int SEQUENTIAL_TRAVERSAL = 1;
+
+    private final RelationshipLookup relationshipLookup;
     private final GroupApiClient groupApiClient;
-    private Set<String> allGroupIds;
-    private Set<String> idsOfActiveGroups;
+    private final ForkJoinPool traversalPool;
+    private GroupIndex groupIndex;
 
-    public GroupMemberAccountResolver(RelationshipApiClient relationshipApiClient,
+    public GroupMemberAccountResolver(RelationshipLookup relationshipLookup,
                                       GroupApiClient groupApiClient) {
-        this.relationshipApiClient = relationshipApiClient;
+        this(relationshipLookup, groupApiClient, SEQUENTIAL_TRAVERSAL);
+    }
+
+    /**
+     * Creates a resolver which expands sibling subgroups concurrently.
+     * <p>
+     * Each subgroup is expanded by its own fork-join task, so a wide hierarchy is resolved in about one round of
+     * relationship lookups per level rather than one lookup after another. The parallelism is the number of workers
+     * the pool aims to keep running; lookups block as managed blockers, so the pool may add workers while they wait.
+     * </p>
+     * <p>
+     * A resolver with a parallelism above 1 owns a thread pool and should be closed when no longer needed.
+     * </p>
+     *
+     * @param relationshipLookup The source of group relationships.
+     * @param groupApiClient     Client used to fetch the IDs of all groups and of active groups.
+     * @param parallelism        The maximum number of subgroups expanded concurrently. A value of 1 expands
+     *                           subgroups one after another on the calling thread.
+     */
+    public GroupMemberAccountResolver(RelationshipLookup relationshipLookup,
+                                      GroupApiClient groupApiClient, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.relationshipLookup = relationshipLookup;
         this.groupApiClient = groupApiClient;
+        this.traversalPool = parallelism > SEQUENTIAL_TRAVERSAL ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Creates a resolver over group IDs that are already loaded, for example by a
+     * {@link com.infrasight.kodtest.snapshot.DatasetLoader}, so that no groups are fetched.
+     *
+     * @param relationshipLookup The source of group relationships.
+     * @param groupIndex         The IDs of all groups and of active groups.
+     * @param parallelism        The maximum number of subgroups expanded concurrently. A value of 1 expands
+     *                           subgroups one after another on the calling thread.
+     */
+    public GroupMemberAccountResolver(RelationshipLookup relationshipLookup, GroupIndex groupIndex, int parallelism) {
+        this(relationshipLookup, (GroupApiClient) null, parallelism);
+        this.groupIndex = groupIndex;
     }
 
     /**
@@ -29,11 +75,20 @@ public class GroupMemberAccountResolver {
      */
     public Set<String> getAccountIdsForGroup(String groupId) {
         Set<String> discoveredAccountIds = ConcurrentHashMap.newKeySet();
+        Set<String> expandedGroupIds = ConcurrentHashMap.newKeySet();
+        expandedGroupIds.add(groupId);
 
-        List<Relationship> relationships = relationshipApiClient.getRelationshipsByGroupId(groupId);
+        if (traversalPool != null) {
+            // loaded up front, so that the tasks only read it
+            getGroupIndex();
+            traversalPool.invoke(new ExpandGroupTask(groupId, discoveredAccountIds, expandedGroupIds));
+            return discoveredAccountIds;
+        }
+
+        List<Relationship> relationships = relationshipLookup.getRelationshipsByGroupId(groupId);
 
         for (Relationship relationship : relationships) {
-            getAccountIdsForGroupRecursively(relationship.getMemberId(), discoveredAccountIds);
+            getAccountIdsForGroupRecursively(relationship.getMemberId(), discoveredAccountIds, expandedGroupIds);
         }
 
         return discoveredAccountIds;
@@ -43,38 +98,112 @@ public class GroupMemberAccountResolver {
      * Recursively collects account IDs. If the provided ID represents an active group, its members are processed recursively.
      * Otherwise, the ID is added to the set of found account IDs.
      * <p>
-     * Inactive groups are ignored, and their members are not processed.
+     * Inactive groups are ignored, and their members are not processed. Each group is expanded at most once, so
+     * groups reachable along several paths, or through a cycle, are only looked up once.
      * </p>
      *
      * @param groupOrMemberId      the ID of a group or account.
      * @param discoveredAccountIds the set to which discovered account IDs are added.
+     * @param expandedGroupIds     the IDs of groups that have already been expanded.
      */
-    private void getAccountIdsForGroupRecursively(String groupOrMemberId, Set<String> discoveredAccountIds) {
-        if (getIdsOfAllGroups().contains(groupOrMemberId)) {
-            if (!getIdsOfActiveGroups().contains(groupOrMemberId)) {
+    private void getAccountIdsForGroupRecursively(String groupOrMemberId, Set<String> discoveredAccountIds,
+                                                  Set<String> expandedGroupIds) {
+        if (getGroupIndex().getAllGroupIds().contains(groupOrMemberId)) {
+            if (!getGroupIndex().getActiveGroupIds().contains(groupOrMemberId) || !expandedGroupIds.add(groupOrMemberId)) {
                 return;
             }
-            List<Relationship> groupRelationships = relationshipApiClient.getRelationshipsByGroupId(groupOrMemberId);
+            List<Relationship> groupRelationships = relationshipLookup.getRelationshipsByGroupId(groupOrMemberId);
 
             for (Relationship groupRelationship : groupRelationships) {
-                getAccountIdsForGroupRecursively(groupRelationship.getMemberId(), discoveredAccountIds);
+                getAccountIdsForGroupRecursively(groupRelationship.getMemberId(), discoveredAccountIds, expandedGroupIds);
             }
         } else {
             discoveredAccountIds.add(groupOrMemberId);
         }
     }
 
-    private Set<String> getIdsOfAllGroups() {
-        if (allGroupIds == null) {
-            allGroupIds = groupApiClient.getAllGroupIds();
+    /**
+     * Shuts down the traversal pool, if the resolver has one. Traversals in progress are completed.
+     */
+    @Override
+    public void close() {
+        if (traversalPool != null) {
+            traversalPool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the group IDs, loading all and active group IDs from a single group scan on first use.
+     */
+    private GroupIndex getGroupIndex() {
+        if (groupIndex == null) {
+            groupIndex = GroupIndex.load(groupApiClient);
         }
-        return allGroupIds;
+        return groupIndex;
     }
 
-    private Set<String> getIdsOfActiveGroups() {
-        if (idsOfActiveGroups == null) {
-            idsOfActiveGroups = groupApiClient.getGroupIdsForActiveGroups();
+    /**
+     * Looks up the members of one group, collects its accounts and forks one task per active subgroup that has not
+     * been expanded by another task yet.
+     */
+    private class ExpandGroupTask extends RecursiveAction {
+        private final String groupId;
+        private final Set<String> discoveredAccountIds;
+        private final Set<String> expandedGroupIds;
+
+        private ExpandGroupTask(String groupId, Set<String> discoveredAccountIds, Set<String> expandedGroupIds) {
+            this.groupId = groupId;
+            this.discoveredAccountIds = discoveredAccountIds;
+            this.expandedGroupIds = expandedGroupIds;
+        }
+
+        @Override
+        protected void compute() {
+            List<ExpandGroupTask> subgroupTasks = new ArrayList<>();
+            for (Relationship relationship : getRelationshipsByGroupId()) {
+                String memberId = relationship.getMemberId();
+                if (!groupIndex.getAllGroupIds().contains(memberId)) {
+                    discoveredAccountIds.add(memberId);
+                } else if (groupIndex.getActiveGroupIds().contains(memberId) && expandedGroupIds.add(memberId)) {
+                    subgroupTasks.add(new ExpandGroupTask(memberId, discoveredAccountIds, expandedGroupIds));
+                }
+            }
+            invokeAll(subgroupTasks);
+        }
+
+        /**
+         * Looks up the members of the group as a managed blocker, so that the pool can compensate for the worker
+         * waiting on the lookup by running other tasks on a spare thread.
+         */
+        private List<Relationship> getRelationshipsByGroupId() {
+            RelationshipLookupBlocker blocker = new RelationshipLookupBlocker(groupId);
+            try {
+                ForkJoinPool.managedBlock(blocker);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApiClientException("Interrupted while looking up relationships", e);
+            }
+            return blocker.relationships;
+        }
+    }
+
+    private class RelationshipLookupBlocker implements ForkJoinPool.ManagedBlocker {
+        private final String groupId;
+        private List<Relationship> relationships;
+
+        private RelationshipLookupBlocker(String groupId) {
+            this.groupId = groupId;
+        }
+
+        @Override
+        public boolean block() {
+            relationships = relationshipLookup.getRelationshipsByGroupId(groupId);
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return relationships != null;
         }
-        return idsOfActiveGroups;
     }
 }
@@ -0,0 +1,463 @@
+package com.infrasight.kodtest.resolver;
+
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.model.Relationship;
+import com.infrasight.kodtest.index.GroupIndex;
+import com.infrasight.kodtest.index.RelationshipGraph;
+import com.infrasight.kodtest.snapshot.DatasetSnapshot;
+import com.infrasight.kodtest.snapshot.DatasetSync;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Resolves group memberships like {@link GroupAssociationResolver} and {@link GroupMemberAccountResolver}, but
+ * memoizes each group's transitive result so that it is computed once and shared by every later query.
+ * <p>
+ * Active groups are collapsed into their strongly connected components, so that groups which are members of each
+ * other form a single node with a single memoized result, and the remaining component graph has no cycles. The
+ * ancestor groups of a component are its own groups plus the memoized ancestors of its parent components, and its
+ * accounts are its own direct accounts plus the memoized accounts of its child components. Results are computed
+ * lazily, on the first query that needs them.
+ * </p>
+ * <p>
+ * All memoized results are discarded by {@link #invalidate(RelationshipGraph, Set, Set)}, which happens
+ * automatically for every new version when the resolver is created with {@link #fromSync(DatasetSync)}. Such a
+ * resolver stops following the sync when it is closed.
+ * </p>
+ */
+public class MemoizingGroupResolver implements AutoCloseable {
+    private volatile MemoizedGroups memoizedGroups;
+    private DatasetSync datasetSync;
+    private Consumer<DatasetSync.DatasetVersion> changeListener;
+    private DatasetSync.DatasetVersion syncedVersion;
+
+    /**
+     * @param relationshipGraph The group membership relationships.
+     * @param allGroupIds       The IDs of all groups, used to tell groups and accounts apart.
+     * @param activeGroupIds    The IDs of all active groups.
+     */
+    public MemoizingGroupResolver(RelationshipGraph relationshipGraph, Set<String> allGroupIds, Set<String> activeGroupIds) {
+        this.memoizedGroups = new MemoizedGroups(relationshipGraph, allGroupIds, activeGroupIds);
+    }
+
+    /**
+     * Creates a resolver over a relationship graph, fetching the group IDs from the API with a single group scan.
+     *
+     * @param relationshipGraph The group membership relationships.
+     * @param groupApiClient    Client used to fetch the IDs of all groups and of active groups.
+     * @return The resolver.
+     */
+    public static MemoizingGroupResolver load(RelationshipGraph relationshipGraph, GroupApiClient groupApiClient) {
+        GroupIndex groupIndex = GroupIndex.load(groupApiClient);
+        return new MemoizingGroupResolver(relationshipGraph, groupIndex.getAllGroupIds(), groupIndex.getActiveGroupIds());
+    }
+
+    /**
+     * Creates a resolver over the current version of a dataset sync, which is invalidated whenever the sync
+     * publishes a new version, until the resolver is closed.
+     * <p>
+     * The resolver is built from the current version and its change listener is registered before any other
+     * version is read. The version is then compared once more and the resolver is rebuilt if one was published in
+     * between, so no version is missed.
+     * </p>
+     *
+     * @param datasetSync The sync providing the relationships and groups.
+     * @return The resolver.
+     */
+    public static MemoizingGroupResolver fromSync(DatasetSync datasetSync) {
+        DatasetSync.DatasetVersion version = datasetSync.getVersion();
+        MemoizingGroupResolver resolver = new MemoizingGroupResolver(version.getRelationshipGraph(),
+                version.getSnapshot().getAllGroupIds(), version.getSnapshot().getGroupIdsForActiveGroups());
+        synchronized (resolver) {
+            resolver.datasetSync = datasetSync;
+            resolver.syncedVersion = version;
+            resolver.changeListener = changedVersion -> resolver.refresh();
+        }
+        datasetSync.addChangeListener(resolver.changeListener);
+        resolver.refresh();
+        return resolver;
+    }
+
+    /**
+     * Discards all memoized results and resolves following queries against new group data. Queries already
+     * running complete against the old data.
+     *
+     * @param relationshipGraph The group membership relationships.
+     * @param allGroupIds       The IDs of all groups, used to tell groups and accounts apart.
+     * @param activeGroupIds    The IDs of all active groups.
+     */
+    public void invalidate(RelationshipGraph relationshipGraph, Set<String> allGroupIds, Set<String> activeGroupIds) {
+        memoizedGroups = new MemoizedGroups(relationshipGraph, allGroupIds, activeGroupIds);
+    }
+
+    /**
+     * Rebuilds the resolver from the current version of the followed sync, unless it is already built from it.
+     * Refreshes are serialized and always read the latest version, so a slow refresh can never replace a newer
+     * version with an older one.
+     */
+    private synchronized void refresh() {
+        if (datasetSync == null) {
+            return;
+        }
+        DatasetSync.DatasetVersion version = datasetSync.getVersion();
+        if (version != syncedVersion) {
+            DatasetSnapshot snapshot = version.getSnapshot();
+            invalidate(version.getRelationshipGraph(), snapshot.getAllGroupIds(), snapshot.getGroupIdsForActiveGroups());
+            syncedVersion = version;
+        }
+    }
+
+    /**
+     * Retrieves all group IDs for a given member, including nested group memberships. Only active groups are
+     * considered, with the same semantics as {@link GroupAssociationResolver#getIdsForMembersDirectAndIndirectGroups(String)}.
+     *
+     * @param memberId the ID of the member.
+     * @return a set of all group IDs the member belongs to, including indirect group memberships.
+     */
+    public Set<String> getIdsForMembersDirectAndIndirectGroups(String memberId) {
+        return getGroupIds(current(), memberId);
+    }
+
+    /**
+     * Retrieves the IDs of all accounts associated with a given group, including accounts from active subgroups,
+     * with the same semantics as {@link GroupMemberAccountResolver#getAccountIdsForGroup(String)}.
+     *
+     * @param groupId the ID of the group for which to retrieve account IDs.
+     * @return a set of account IDs belonging to the specified group and its sub-groups. The set of an active group
+     * is the shared memoized result and cannot be modified.
+     */
+    public Set<String> getAccountIdsForGroup(String groupId) {
+        return getAccountIds(current(), groupId);
+    }
+
+    private static Set<String> getGroupIds(MemoizedGroups groups, String memberId) {
+        Set<String> groupIds = new HashSet<>();
+        for (Relationship relationship : groups.relationshipGraph.getRelationshipsByMemberId(memberId)) {
+            Integer group = groups.groupIndexById.get(relationship.getGroupId());
+            if (group != null) {
+                groupIds.addAll(groups.getAncestorGroupIds(groups.componentByGroup[group]));
+            }
+        }
+        return groupIds;
+    }
+
+    private static Set<String> getAccountIds(MemoizedGroups groups, String groupId) {
+        Integer group = groups.groupIndexById.get(groupId);
+        if (group != null) {
+            return groups.getAccountIds(groups.componentByGroup[group]);
+        }
+
+        // an inactive group is not memoized, but its direct members and active subgroups are resolved as usual
+        Set<String> accountIds = new HashSet<>();
+        for (Relationship relationship : groups.relationshipGraph.getRelationshipsByGroupId(groupId)) {
+            String memberId = relationship.getMemberId();
+            Integer subgroup = groups.groupIndexById.get(memberId);
+            if (subgroup != null) {
+                accountIds.addAll(groups.getAccountIds(groups.componentByGroup[subgroup]));
+            } else if (!groups.allGroupIds.contains(memberId)) {
+                accountIds.add(memberId);
+            }
+        }
+        return accountIds;
+    }
+
+    /**
+     * Resolves the groups of every account in one pass, for reports that need the complete mapping.
+     * <p>
+     * Ancestor groups are memoized for all components in topological order, parents before children, so each
+     * component's result is built once from its parents' finished results. Each account's groups are then the union
+     * of the results of its direct active groups.
+     * </p>
+     *
+     * @return The IDs of all groups each account belongs to, directly or indirectly, for every account which is a
+     * member of at least one group. Accounts only in inactive groups map to an empty set.
+     */
+    public Map<String, Set<String>> getGroupIdsByAccountId() {
+        MemoizedGroups groups = current();
+        groups.memoizeAllAncestorGroupIds();
+
+        Map<String, Set<String>> groupIdsByAccountId = new HashMap<>();
+        for (String memberId : groups.relationshipGraph.getMemberIds()) {
+            if (!groups.allGroupIds.contains(memberId)) {
+                groupIdsByAccountId.put(memberId, getGroupIds(groups, memberId));
+            }
+        }
+        return groupIdsByAccountId;
+    }
+
+    /**
+     * Resolves the accounts of every group in one pass, for reports that need the complete mapping.
+     * <p>
+     * Accounts are memoized for all components in topological order, children before parents, so each
+     * component's result is built once from its children's finished results.
+     * </p>
+     *
+     * @return The IDs of all accounts in each group and its active subgroups, for every known group, including
+     * groups without members. The sets of active groups are shared memoized results and cannot be modified.
+     */
+    public Map<String, Set<String>> getAccountIdsByGroupId() {
+        MemoizedGroups groups = current();
+        groups.memoizeAllAccountIds();
+
+        Map<String, Set<String>> accountIdsByGroupId = new HashMap<>();
+        Set<String> groupIds = new HashSet<>(groups.allGroupIds);
+        groupIds.addAll(groups.relationshipGraph.getGroupIds());
+        for (String groupId : groupIds) {
+            accountIdsByGroupId.put(groupId, getAccountIds(groups, groupId));
+        }
+        return accountIdsByGroupId;
+    }
+
+    /**
+     * @return The number of strongly connected components of active groups, which is the number of active groups
+     * minus the groups merged into a cycle.
+     */
+    public int getComponentCount() {
+        return current().componentGroups.length;
+    }
+
+    /**
+     * Stops invalidating the resolver for new versions of the sync it was created from with
+     * {@link #fromSync(DatasetSync)}. Does nothing for resolvers created otherwise.
+     */
+    @Override
+    public synchronized void close() {
+        if (datasetSync != null) {
+            datasetSync.removeChangeListener(changeListener);
+            datasetSync = null;
+        }
+    }
+
+    private MemoizedGroups current() {
+        return memoizedGroups;
+    }
+
+    /**
+     * The component graph of one version of the group data, with its memoized results.
+     */
+    private static class MemoizedGroups {
+        private final RelationshipGraph relationshipGraph;
+        private final Set<String> allGroupIds;
+        private final Map<String, Integer> groupIndexById = new HashMap<>();
+        private final List<String> groupIds = new ArrayList<>();
+        private final int[] componentByGroup;
+        private final int[][] componentGroups;
+        private final int[][] parentComponents;
+        private final int[][] childComponents;
+        private final Set<String>[] ancestorGroupIdsByComponent;
+        private final Set<String>[] accountIdsByComponent;
+
+        @SuppressWarnings("unchecked")
+        private MemoizedGroups(RelationshipGraph relationshipGraph, Set<String> allGroupIds, Set<String> activeGroupIds) {
+            this.relationshipGraph = relationshipGraph;
+            this.allGroupIds = allGroupIds;
+            for (String groupId : activeGroupIds) {
+                groupIndexById.put(groupId, groupIds.size());
+                groupIds.add(groupId);
+            }
+
+            int groupCount = groupIds.size();
+            int[][] activeParents = new int[groupCount][];
+            for (int group = 0; group < groupCount; group++) {
+                activeParents[group] = relationshipGraph.getRelationshipsByMemberId(groupIds.get(group)).stream()
+                        .map(relationship -> groupIndexById.get(relationship.getGroupId()))
+                        .filter(parent -> parent != null)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+
+            componentByGroup = new int[groupCount];
+            componentGroups = findStronglyConnectedComponents(activeParents, componentByGroup);
+            parentComponents = new int[componentGroups.length][];
+            childComponents = new int[componentGroups.length][];
+            List<Set<Integer>> children = new ArrayList<>();
+            for (int component = 0; component < componentGroups.length; component++) {
+                children.add(new LinkedHashSet<>());
+            }
+            for (int component = 0; component < componentGroups.length; component++) {
+                Set<Integer> parents = new LinkedHashSet<>();
+                for (int group : componentGroups[component]) {
+                    for (int parent : activeParents[group]) {
+                        if (componentByGroup[parent] != component) {
+                            parents.add(componentByGroup[parent]);
+                            children.get(componentByGroup[parent]).add(component);
+                        }
+                    }
+                }
+                parentComponents[component] = parents.stream().mapToInt(Integer::intValue).toArray();
+            }
+            for (int component = 0; component < componentGroups.length; component++) {
+                childComponents[component] = children.get(component).stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            ancestorGroupIdsByComponent = new Set[componentGroups.length];
+            accountIdsByComponent = new Set[componentGroups.length];
+        }
+
+        /**
+         * @return The IDs of the groups of a component and of all groups it is a member of, directly or indirectly.
+         */
+        private synchronized Set<String> getAncestorGroupIds(int component) {
+            resolve(component, parentComponents, ancestorGroupIdsByComponent, this::collectGroupIds);
+            return ancestorGroupIdsByComponent[component];
+        }
+
+        /**
+         * @return The IDs of the accounts that are members of the groups of a component or of their active
+         * subgroups, directly or indirectly.
+         */
+        private synchronized Set<String> getAccountIds(int component) {
+            resolve(component, childComponents, accountIdsByComponent, this::collectDirectAccountIds);
+            return accountIdsByComponent[component];
+        }
+
+        /**
+         * Memoizes the ancestor groups of every component. Tarjan's algorithm numbers a component only after all
+         * components reachable from it, and the components were found along parent edges, so ascending order visits
+         * parents first and every component finds its parents' results already memoized.
+         */
+        private synchronized void memoizeAllAncestorGroupIds() {
+            for (int component = 0; component < componentGroups.length; component++) {
+                resolve(component, parentComponents, ancestorGroupIdsByComponent, this::collectGroupIds);
+            }
+        }
+
+        /**
+         * Memoizes the accounts of every component, in descending order so that children are visited first.
+         */
+        private synchronized void memoizeAllAccountIds() {
+            for (int component = componentGroups.length - 1; component >= 0; component--) {
+                resolve(component, childComponents, accountIdsByComponent, this::collectDirectAccountIds);
+            }
+        }
+
+        /**
+         * Memoizes the result of a component and of every component reachable from it that has no memoized result
+         * yet. Each result is the component's own IDs plus the results of the components it has edges to, so those
+         * are resolved first, in post-order. The component graph has no cycles, so every result can be completed.
+         */
+        private void resolve(int component, int[][] edges, Set<String>[] results, OwnIds ownIds) {
+            if (results[component] != null) {
+                return;
+            }
+
+            Deque<int[]> stack = new ArrayDeque<>();
+            stack.push(new int[]{component, 0});
+            while (!stack.isEmpty()) {
+                int[] frame = stack.peek();
+                int current = frame[0];
+                if (frame[1] < edges[current].length) {
+                    int next = edges[current][frame[1]++];
+                    if (results[next] == null) {
+                        stack.push(new int[]{next, 0});
+                    }
+                    continue;
+                }
+
+                stack.pop();
+                if (results[current] == null) {
+                    Set<String> result = new HashSet<>();
+                    ownIds.collect(current, result);
+                    for (int next : edges[current]) {
+                        result.addAll(results[next]);
+                    }
+                    results[current] = Collections.unmodifiableSet(result);
+                }
+            }
+        }
+
+        private void collectGroupIds(int component, Set<String> result) {
+            for (int group : componentGroups[component]) {
+                result.add(groupIds.get(group));
+            }
+        }
+
+        private void collectDirectAccountIds(int component, Set<String> result) {
+            for (int group : componentGroups[component]) {
+                for (Relationship relationship : relationshipGraph.getRelationshipsByGroupId(groupIds.get(group))) {
+                    if (!allGroupIds.contains(relationship.getMemberId())) {
+                        result.add(relationship.getMemberId());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Finds the strongly connected components of a graph with Tarjan's algorithm, without recursion.
+         *
+         * @param edges            The outgoing edges of each node.
+         * @param componentByNode  Receives the component of each node.
+         * @return The nodes of each component.
+         */
+        private static int[][] findStronglyConnectedComponents(int[][] edges, int[] componentByNode) {
+            int nodeCount = edges.length;
+            int[] discoveryIndex = new int[nodeCount];
+            int[] lowLink = new int[nodeCount];
+            boolean[] onStack = new boolean[nodeCount];
+            Arrays.fill(discoveryIndex, -1);
+            Deque<Integer> componentStack = new ArrayDeque<>();
+            Deque<int[]> callStack = new ArrayDeque<>();
+            List<int[]> components = new ArrayList<>();
+            int nextIndex = 0;
+
+            for (int root = 0; root < nodeCount; root++) {
+                if (discoveryIndex[root] >= 0) continue;
+                callStack.push(new int[]{root, 0});
+                discoveryIndex[root] = lowLink[root] = nextIndex++;
+                componentStack.push(root);
+                onStack[root] = true;
+
+                while (!callStack.isEmpty()) {
+                    int[] frame = callStack.peek();
+                    int node = frame[0];
+                    if (frame[1] < edges[node].length) {
+                        int next = edges[node][frame[1]++];
+                        if (discoveryIndex[next] < 0) {
+                            discoveryIndex[next] = lowLink[next] = nextIndex++;
+                            componentStack.push(next);
+                            onStack[next] = true;
+                            callStack.push(new int[]{next, 0});
+                        } else if (onStack[next]) {
+                            lowLink[node] = Math.min(lowLink[node], discoveryIndex[next]);
+                        }
+                        continue;
+                    }
+
+                    callStack.pop();
+                    if (!callStack.isEmpty()) {
+                        int caller = callStack.peek()[0];
+                        lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+                    }
+                    if (lowLink[node] == discoveryIndex[node]) {
+                        List<Integer> members = new ArrayList<>();
+                        int member;
+                        do {
+                            member = componentStack.pop();
+                            onStack[member] = false;
+                            componentByNode[member] = components.size();
+                            members.add(member);
+                        } while (member != node);
+                        components.add(members.stream().mapToInt(Integer::intValue).toArray());
+                    }
+                }
+            }
+            return components.toArray(new int[0][]);
+        }
+    }
+
+    @FunctionalInterface
+    private interface OwnIds {
+        void collect(int component, Set<String> result);
+    }
+}
@@ -0,0 +1,118 @@
+package com.infrasight.kodtest.snapshot;
+
+import com.infrasight.kodtest.api.client.AccountApiClient;
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.api.model.Group;
+import com.infrasight.kodtest.api.model.Relationship;
+import com.infrasight.kodtest.index.AccountTable;
+import com.infrasight.kodtest.index.GroupIndex;
+import com.infrasight.kodtest.index.ManagerIndex;
+import com.infrasight.kodtest.index.RelationshipGraph;
+import com.infrasight.kodtest.resolver.MemoizingGroupResolver;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Warms up all data a resolver-based job needs, by scanning the groups, relationships and accounts endpoints
+ * concurrently and building every derived index as soon as its input has arrived.
+ * <p>
+ * Each scan is asynchronous and requests all pages after the first at once, so the warm-up takes about as long as
+ * the largest endpoint rather than the sum of all of them. Every scan and index is exposed as a future, so a job can
+ * start on what it needs, e.g. group resolution, before the accounts have arrived. Indexes are built off the
+ * HTTP threads, in the common fork-join pool.
+ * </p>
+ */
+public class DatasetLoader {
+    private final Instant startedAt;
+    private final CompletableFuture<List<Group>> groups;
+    private final CompletableFuture<List<Relationship>> relationships;
+    private final CompletableFuture<List<Account>> accounts;
+    private final CompletableFuture<GroupIndex> groupIndex;
+    private final CompletableFuture<RelationshipGraph> relationshipGraph;
+    private final CompletableFuture<ManagerIndex> managerIndex;
+    private final CompletableFuture<AccountTable> accountTable;
+    private final CompletableFuture<MemoizingGroupResolver> groupResolver;
+
+    private DatasetLoader(AccountApiClient accountApiClient, GroupApiClient groupApiClient,
+                          RelationshipApiClient relationshipApiClient) {
+        this.startedAt = Instant.now();
+        this.groups = groupApiClient.getAllGroupsAsync();
+        this.relationships = relationshipApiClient.getAllRelationshipsAsync();
+        this.accounts = accountApiClient.getAllAccountsAsync();
+
+        this.groupIndex = groups.thenApplyAsync(GroupIndex::new);
+        this.relationshipGraph = relationships.thenApplyAsync(RelationshipGraph::new);
+        this.managerIndex = relationships.thenApplyAsync(ManagerIndex::new);
+        this.accountTable = accounts.thenApplyAsync(AccountTable::new);
+        this.groupResolver = relationshipGraph.thenCombine(groupIndex, (graph, index) ->
+                new MemoizingGroupResolver(graph, index.getAllGroupIds(), index.getActiveGroupIds()));
+    }
+
+    /**
+     * Starts loading all endpoints concurrently. Returns without waiting for any of them.
+     *
+     * @param accountApiClient      Client used to scan all accounts.
+     * @param groupApiClient        Client used to scan all groups.
+     * @param relationshipApiClient Client used to scan all relationships.
+     * @return The loader, whose futures complete as the scans and indexes are done.
+     */
+    public static DatasetLoader start(AccountApiClient accountApiClient, GroupApiClient groupApiClient,
+                                      RelationshipApiClient relationshipApiClient) {
+        return new DatasetLoader(accountApiClient, groupApiClient, relationshipApiClient);
+    }
+
+    /**
+     * @return A future completed with the IDs of all groups and of active groups.
+     */
+    public CompletableFuture<GroupIndex> getGroupIndex() {
+        return groupIndex;
+    }
+
+    /**
+     * @return A future completed with the group membership graph of all relationships.
+     */
+    public CompletableFuture<RelationshipGraph> getRelationshipGraph() {
+        return relationshipGraph;
+    }
+
+    /**
+     * @return A future completed with the manager hierarchy of all relationships.
+     */
+    public CompletableFuture<ManagerIndex> getManagerIndex() {
+        return managerIndex;
+    }
+
+    /**
+     * @return A future completed with the columnar table of all accounts.
+     */
+    public CompletableFuture<AccountTable> getAccountTable() {
+        return accountTable;
+    }
+
+    /**
+     * @return A future completed with a memoizing resolver over all groups and relationships. Does not wait for
+     * the accounts.
+     */
+    public CompletableFuture<MemoizingGroupResolver> getGroupResolver() {
+        return groupResolver;
+    }
+
+    /**
+     * @return A future completed with a snapshot of all scanned records, dated when loading started.
+     */
+    public CompletableFuture<DatasetSnapshot> getSnapshot() {
+        return CompletableFuture.allOf(groups, relationships, accounts).thenApply(ignored ->
+                new DatasetSnapshot(startedAt, accounts.join(), groups.join(), relationships.join()));
+    }
+
+    /**
+     * @return A future completed when every scan and index is done, or exceptionally with the first failure.
+     */
+    public CompletableFuture<Void> getReady() {
+        return CompletableFuture.allOf(groupIndex, relationshipGraph, managerIndex, accountTable, groupResolver);
+    }
+}
@@ -0,0 +1,102 @@
+package com.infrasight.kodtest.snapshot;
+
+import com.infrasight.kodtest.api.client.AccountApiClient;
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.api.model.Group;
+import com.infrasight.kodtest.api.model.Relationship;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable copy of all accounts, groups and relationships in the API, taken at a point in time. A snapshot can
+ * be saved to and loaded from disk with {@link SnapshotFile}.
+ */
+public class DatasetSnapshot {
+    private final Instant createdAt;
+    private final List<Account> accounts;
+    private final List<Group> groups;
+    private final List<Relationship> relationships;
+
+    public DatasetSnapshot(Instant createdAt, List<Account> accounts, List<Group> groups, List<Relationship> relationships) {
+        this.createdAt = createdAt;
+        this.accounts = Collections.unmodifiableList(accounts);
+        this.groups = Collections.unmodifiableList(groups);
+        this.relationships = Collections.unmodifiableList(relationships);
+    }
+
+    /**
+     * Fetches all records from the API.
+     *
+     * @param accountApiClient      Client used to fetch all accounts.
+     * @param groupApiClient        Client used to fetch all groups.
+     * @param relationshipApiClient Client used to fetch all relationships.
+     * @return A snapshot of the current records.
+     */
+    public static DatasetSnapshot fetch(AccountApiClient accountApiClient, GroupApiClient groupApiClient,
+                                        RelationshipApiClient relationshipApiClient) {
+        Instant createdAt = Instant.now();
+        return new DatasetSnapshot(createdAt, accountApiClient.getAllAccounts(), groupApiClient.getAllGroups(),
+                relationshipApiClient.getAllRelationships());
+    }
+
+    /**
+     * Checks whether the snapshot still matches the API, by comparing its record counts with the totals reported by
+     * the API. This costs one request per record type. Records changed in place are not detected, which is what
+     * the maximum age is for.
+     *
+     * @param accountApiClient      Client used to count accounts.
+     * @param groupApiClient        Client used to count groups.
+     * @param relationshipApiClient Client used to count relationships.
+     * @param maxAge                The maximum age of a fresh snapshot.
+     * @return {@code true} if the snapshot is younger than the maximum age and the record counts match.
+     */
+    public boolean isFresh(AccountApiClient accountApiClient, GroupApiClient groupApiClient,
+                           RelationshipApiClient relationshipApiClient, Duration maxAge) {
+        return !createdAt.plus(maxAge).isBefore(Instant.now())
+                && accounts.size() == accountApiClient.countAccounts()
+                && groups.size() == groupApiClient.countGroups()
+                && relationships.size() == relationshipApiClient.countRelationships();
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    public List<Relationship> getRelationships() {
+        return relationships;
+    }
+
+    /**
+     * @return The IDs of all groups, as {@link GroupApiClient#getAllGroupIds()} would return them.
+     */
+    public Set<String> getAllGroupIds() {
+        return groups.stream()
+                .map(Group::getId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return The IDs of all active groups, as {@link GroupApiClient#getGroupIdsForActiveGroups()} would return them.
+     */
+    public Set<String> getGroupIdsForActiveGroups() {
+        return groups.stream()
+                .filter(Group::isActive)
+                .map(Group::getId)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,229 @@
+package com.infrasight.kodtest.snapshot;
+
+import com.infrasight.kodtest.api.client.AccountApiClient;
+import com.infrasight.kodtest.api.client.EndpointSync;
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.api.model.Group;
+import com.infrasight.kodtest.api.model.Relationship;
+import com.infrasight.kodtest.index.AccountTable;
+import com.infrasight.kodtest.index.RelationshipGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link DatasetSnapshot}, a {@link RelationshipGraph} and an {@link AccountTable} of all records in the API
+ * up to date, using one {@link EndpointSync} per endpoint.
+ * <p>
+ * Each sync that finds changes publishes a new snapshot, a new graph if relationships changed, and a new account
+ * table if accounts changed. The graph and table are rebuilt from the synced records rather than patched, as
+ * readers may still hold the previous ones. Readers keep working against the version they already hold, so syncing
+ * never blocks or disturbs a running query.
+ * </p>
+ * <p>
+ * Every published version remembers the {@link EndpointSync#getGeneration() generation} of each endpoint it was
+ * built from. A sync publishes whenever any endpoint is ahead of the current version, so changes found by a sync
+ * that later failed are published by the next one.
+ * </p>
+ */
+public class DatasetSync implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DatasetSync.class);
+
+    private final EndpointSync<Account> accountSync;
+    private final EndpointSync<Group> groupSync;
+    private final EndpointSync<Relationship> relationshipSync;
+    private final ScheduledExecutorService scheduler;
+    private final List<Consumer<DatasetVersion>> changeListeners = new CopyOnWriteArrayList<>();
+
+    private volatile DatasetVersion currentVersion;
+
+    /**
+     * Creates a sync and scans all endpoints once.
+     *
+     * @param accountApiClient      Client used to sync accounts.
+     * @param groupApiClient        Client used to sync groups.
+     * @param relationshipApiClient Client used to sync relationships.
+     * @param pagesPerSync          The number of pages fetched per endpoint by each sync that finds unchanged totals.
+     * @throws com.infrasight.kodtest.exception.ApiClientException If an error occurs during the initial scan.
+     */
+    public DatasetSync(AccountApiClient accountApiClient, GroupApiClient groupApiClient,
+                       RelationshipApiClient relationshipApiClient, int pagesPerSync) {
+        this.accountSync = accountApiClient.newSync(pagesPerSync);
+        this.groupSync = groupApiClient.newSync(pagesPerSync);
+        this.relationshipSync = relationshipApiClient.newSync(pagesPerSync);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dataset-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sync();
+    }
+
+    /**
+     * Syncs all endpoints once and publishes a new version if anything changed since the current version.
+     *
+     * @return {@code true} if a new version was published.
+     * @throws com.infrasight.kodtest.exception.ApiClientException If an error occurs during a request. Changes
+     *                                                              found before the error are published by the next
+     *                                                              sync.
+     */
+    public synchronized boolean sync() {
+        accountSync.sync();
+        groupSync.sync();
+        relationshipSync.sync();
+
+        DatasetVersion previousVersion = currentVersion;
+        long accountGeneration = accountSync.getGeneration();
+        long groupGeneration = groupSync.getGeneration();
+        long relationshipGeneration = relationshipSync.getGeneration();
+        boolean accountsChanged = previousVersion == null || accountGeneration != previousVersion.accountGeneration;
+        boolean groupsChanged = previousVersion == null || groupGeneration != previousVersion.groupGeneration;
+        boolean relationshipsChanged = previousVersion == null
+                || relationshipGeneration != previousVersion.relationshipGeneration;
+        if (!accountsChanged && !groupsChanged && !relationshipsChanged) {
+            return false;
+        }
+
+        DatasetSnapshot snapshot = new DatasetSnapshot(Instant.now(), accountSync.getRecords(), groupSync.getRecords(),
+                relationshipSync.getRecords());
+        RelationshipGraph relationshipGraph = relationshipsChanged
+                ? new RelationshipGraph(snapshot.getRelationships())
+                : previousVersion.relationshipGraph;
+        AccountTable accountTable = accountsChanged
+                ? new AccountTable(snapshot.getAccounts())
+                : previousVersion.accountTable;
+        DatasetVersion version = new DatasetVersion(snapshot, relationshipGraph, accountTable, accountGeneration,
+                groupGeneration, relationshipGeneration);
+        currentVersion = version;
+        changeListeners.forEach(listener -> listener.accept(version));
+        return true;
+    }
+
+    /**
+     * Registers a listener which is called with every new version, after it has been published. Listeners are called
+     * on the syncing thread and should return quickly.
+     * <p>
+     * A version published between reading {@link #getVersion()} and registering the listener is not passed to the
+     * listener, so callers that build on the current version should register first and compare versions after.
+     * </p>
+     *
+     * @param listener Receives the new version.
+     */
+    public void addChangeListener(Consumer<DatasetVersion> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addChangeListener(Consumer)}. A call already in progress completes.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeChangeListener(Consumer<DatasetVersion> listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Syncs all endpoints periodically in a background thread until the sync is closed. Failed syncs are logged
+     * and retried at the next interval.
+     *
+     * @param interval The time between the end of one sync and the start of the next.
+     */
+    public void start(Duration interval) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                logger.warn("Dataset sync failed: {}", e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return The version published by the latest sync that found changes. Use this rather than the separate getters
+     * when the snapshot and indexes must belong together.
+     */
+    public DatasetVersion getVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * @return The snapshot published by the latest sync that found changes.
+     */
+    public DatasetSnapshot getSnapshot() {
+        return currentVersion.snapshot;
+    }
+
+    /**
+     * @return The relationship graph published by the latest sync that found changes to relationships.
+     */
+    public RelationshipGraph getRelationshipGraph() {
+        return currentVersion.relationshipGraph;
+    }
+
+    /**
+     * @return The account table published by the latest sync that found changes to accounts.
+     */
+    public AccountTable getAccountTable() {
+        return currentVersion.accountTable;
+    }
+
+    /**
+     * Stops background syncing. A sync in progress is completed.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * A snapshot together with the indexes built from it and the generations of the endpoint syncs it reflects,
+     * published as one unit.
+     */
+    public static class DatasetVersion {
+        private final DatasetSnapshot snapshot;
+        private final RelationshipGraph relationshipGraph;
+        private final AccountTable accountTable;
+        private final long accountGeneration;
+        private final long groupGeneration;
+        private final long relationshipGeneration;
+
+        private DatasetVersion(DatasetSnapshot snapshot, RelationshipGraph relationshipGraph, AccountTable accountTable,
+                               long accountGeneration, long groupGeneration, long relationshipGeneration) {
+            this.snapshot = snapshot;
+            this.relationshipGraph = relationshipGraph;
+            this.accountTable = accountTable;
+            this.accountGeneration = accountGeneration;
+            this.groupGeneration = groupGeneration;
+            this.relationshipGeneration = relationshipGeneration;
+        }
+
+        public DatasetSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * @return The relationship graph built from the relationships of the snapshot.
+         */
+        public RelationshipGraph getRelationshipGraph() {
+            return relationshipGraph;
+        }
+
+        /**
+         * @return The account table built from the accounts of the snapshot.
+         */
+        public AccountTable getAccountTable() {
+            return accountTable;
+        }
+    }
+}
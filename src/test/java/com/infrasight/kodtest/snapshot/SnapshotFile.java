@@ -0,0 +1,283 @@
+package com.infrasight.kodtest.snapshot;
+
+import com.infrasight.kodtest.api.client.AccountApiClient;
+import com.infrasight.kodtest.api.client.GroupApiClient;
+import com.infrasight.kodtest.api.client.RelationshipApiClient;
+import com.infrasight.kodtest.api.model.Account;
+import com.infrasight.kodtest.api.model.Group;
+import com.infrasight.kodtest.api.model.Relationship;
+import com.infrasight.kodtest.exception.SnapshotException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves and loads {@link DatasetSnapshot}s in a compact binary columnar file, read back through a memory-mapped
+ * {@link FileChannel}.
+ * <p>
+ * All strings are stored once in a string table and referenced by index, with -1 for {@code null}. Each record type
+ * is stored as fixed-width columns, one after another:
+ * </p>
+ * <ul>
+ *   <li>Header: magic number, format version and the creation time in epoch milliseconds.</li>
+ *   <li>String table: count, followed by the length and UTF-8 bytes of each string.</li>
+ *   <li>Accounts: count, then the id, firstName, lastName and salaryCurrency string indices, the salary
+ *       {@code int}s, the employedSince {@code long}s and the active flags as bytes.</li>
+ *   <li>Groups: count, then the id and name string indices and the active flags as bytes.</li>
+ *   <li>Relationships: count, then the id, groupId, memberId, accountId and managedId string indices.</li>
+ * </ul>
+ */
+public class SnapshotFile {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotFile.class);
+    private static final int MAGIC = 0x4B54534E; // "KTSN"
+    private static final int FORMAT_VERSION = 1;
+    private static final int NO_STRING = -1;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Loads a snapshot from disk if the file exists and the snapshot is fresh, and otherwise fetches a new snapshot
+     * from the API and saves it.
+     *
+     * @param path                  The snapshot file.
+     * @param accountApiClient      Client used to fetch or count accounts.
+     * @param groupApiClient        Client used to fetch or count groups.
+     * @param relationshipApiClient Client used to fetch or count relationships.
+     * @param maxAge                The maximum age of a snapshot loaded from disk.
+     * @return A fresh snapshot.
+     * @throws SnapshotException If a fetched snapshot cannot be saved.
+     */
+    public static DatasetSnapshot loadOrFetch(Path path, AccountApiClient accountApiClient, GroupApiClient groupApiClient,
+                                              RelationshipApiClient relationshipApiClient, Duration maxAge) {
+        if (Files.exists(path)) {
+            try {
+                DatasetSnapshot snapshot = read(path);
+                if (snapshot.isFresh(accountApiClient, groupApiClient, relationshipApiClient, maxAge)) {
+                    return snapshot;
+                }
+                logger.debug("Snapshot {} from {} is stale", path, snapshot.getCreatedAt());
+            } catch (SnapshotException e) {
+                logger.warn("Ignoring unreadable snapshot {}: {}", path, e.getMessage());
+            }
+        }
+
+        DatasetSnapshot snapshot = DatasetSnapshot.fetch(accountApiClient, groupApiClient, relationshipApiClient);
+        write(snapshot, path);
+        return snapshot;
+    }
+
+    /**
+     * Saves a snapshot. The file is written next to the target and then moved into place, so readers never see a
+     * partially written snapshot. The temporary file is removed if writing or moving fails.
+     *
+     * @param snapshot The snapshot to save.
+     * @param path     The snapshot file, replaced if it exists.
+     * @throws SnapshotException If the file cannot be written.
+     */
+    public static void write(DatasetSnapshot snapshot, Path path) {
+        StringTable strings = new StringTable();
+        List<Account> accounts = snapshot.getAccounts();
+        List<Group> groups = snapshot.getGroups();
+        List<Relationship> relationships = snapshot.getRelationships();
+
+        int[][] accountStringColumns = new int[4][accounts.size()];
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            accountStringColumns[0][i] = strings.indexOf(account.getId());
+            accountStringColumns[1][i] = strings.indexOf(account.getFirstName());
+            accountStringColumns[2][i] = strings.indexOf(account.getLastName());
+            accountStringColumns[3][i] = strings.indexOf(account.getSalaryCurrency());
+        }
+        int[][] groupStringColumns = new int[2][groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            groupStringColumns[0][i] = strings.indexOf(groups.get(i).getId());
+            groupStringColumns[1][i] = strings.indexOf(groups.get(i).getName());
+        }
+        int[][] relationshipStringColumns = new int[5][relationships.size()];
+        for (int i = 0; i < relationships.size(); i++) {
+            Relationship relationship = relationships.get(i);
+            relationshipStringColumns[0][i] = strings.indexOf(relationship.getId());
+            relationshipStringColumns[1][i] = strings.indexOf(relationship.getGroupId());
+            relationshipStringColumns[2][i] = strings.indexOf(relationship.getMemberId());
+            relationshipStringColumns[3][i] = strings.indexOf(relationship.getAccountId());
+            relationshipStringColumns[4][i] = strings.indexOf(relationship.getManagedId());
+        }
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(snapshot.getCreatedAt().toEpochMilli());
+
+                out.writeInt(strings.size());
+                for (String string : strings.strings) {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+
+                out.writeInt(accounts.size());
+                writeColumns(out, accountStringColumns);
+                for (Account account : accounts) out.writeInt(account.getSalary());
+                for (Account account : accounts) out.writeLong(account.getEmployedSince());
+                for (Account account : accounts) out.writeByte(account.isActive() ? 1 : 0);
+
+                out.writeInt(groups.size());
+                writeColumns(out, groupStringColumns);
+                for (Group group : groups) out.writeByte(group.isActive() ? 1 : 0);
+
+                out.writeInt(relationships.size());
+                writeColumns(out, relationshipStringColumns);
+            }
+
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // readers may briefly see a partly replaced file on file systems without atomic moves
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new SnapshotException(String.format("Error writing snapshot %s: %s", path, e.getMessage()), e);
+        } finally {
+            try {
+                Files.deleteIfExists(temporaryPath);
+            } catch (IOException e) {
+                logger.warn("Could not delete temporary snapshot {}: {}", temporaryPath, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Loads a snapshot by memory-mapping the file.
+     *
+     * @param path The snapshot file.
+     * @return The loaded snapshot.
+     * @throws SnapshotException If the file cannot be read or is not a valid snapshot.
+     */
+    public static DatasetSnapshot read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        } catch (IOException e) {
+            throw new SnapshotException(String.format("Error reading snapshot %s: %s", path, e.getMessage()), e);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new SnapshotException(String.format("Truncated or corrupt snapshot %s", path), e);
+        }
+    }
+
+    private static DatasetSnapshot read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new SnapshotException("Not a snapshot file");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new SnapshotException(String.format("Unsupported snapshot format version %d", formatVersion));
+        }
+        Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int accountCount = buffer.getInt();
+        String[][] accountStringColumns = readColumns(buffer, 4, accountCount, strings);
+        int[] salaries = new int[accountCount];
+        buffer.asIntBuffer().get(salaries);
+        buffer.position(buffer.position() + accountCount * Integer.BYTES);
+        long[] employedSince = new long[accountCount];
+        buffer.asLongBuffer().get(employedSince);
+        buffer.position(buffer.position() + accountCount * Long.BYTES);
+        List<Account> accounts = new ArrayList<>(accountCount);
+        for (int i = 0; i < accountCount; i++) {
+            accounts.add(new Account(accountStringColumns[0][i], accountStringColumns[1][i], accountStringColumns[2][i],
+                    salaries[i], accountStringColumns[3][i], employedSince[i], buffer.get() != 0));
+        }
+
+        int groupCount = buffer.getInt();
+        String[][] groupStringColumns = readColumns(buffer, 2, groupCount, strings);
+        List<Group> groups = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new Group(groupStringColumns[0][i], groupStringColumns[1][i], buffer.get() != 0));
+        }
+
+        int relationshipCount = buffer.getInt();
+        String[][] relationshipStringColumns = readColumns(buffer, 5, relationshipCount, strings);
+        List<Relationship> relationships = new ArrayList<>(relationshipCount);
+        for (int i = 0; i < relationshipCount; i++) {
+            relationships.add(new Relationship(relationshipStringColumns[0][i], relationshipStringColumns[1][i],
+                    relationshipStringColumns[2][i], relationshipStringColumns[3][i], relationshipStringColumns[4][i]));
+        }
+
+        return new DatasetSnapshot(createdAt, accounts, groups, relationships);
+    }
+
+    private static void writeColumns(DataOutputStream out, int[][] columns) throws IOException {
+        for (int[] column : columns) {
+            for (int value : column) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Reads columns of string indices and resolves them against the string table.
+     */
+    private static String[][] readColumns(ByteBuffer buffer, int columnCount, int rowCount, String[] strings) {
+        String[][] columns = new String[columnCount][rowCount];
+        int[] indices = new int[rowCount];
+        for (String[] column : columns) {
+            buffer.asIntBuffer().get(indices);
+            buffer.position(buffer.position() + rowCount * Integer.BYTES);
+            for (int row = 0; row < rowCount; row++) {
+                column[row] = indices[row] == NO_STRING ? null : strings[indices[row]];
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Interns strings in the order they are first seen.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> indexByString = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        private int indexOf(String string) {
+            if (string == null) {
+                return NO_STRING;
+            }
+            return indexByString.computeIfAbsent(string, added -> {
+                strings.add(added);
+                return strings.size() - 1;
+            });
+        }
+
+        private int size() {
+            return strings.size();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.infrasight.kodtest.trace;
+
+/**
+ * The totals of all lookups at one depth of a traced query.
+ */
+public final class LevelStats {
+    private final int depth;
+    private final int lookupCount;
+    private final int relationshipCount;
+    private final int pageCount;
+    private final int cacheHitCount;
+    private final long wallNanos;
+    private final long cpuNanos;
+
+    LevelStats(int depth, int lookupCount, int relationshipCount, int pageCount, int cacheHitCount, long wallNanos,
+               long cpuNanos) {
+        this.depth = depth;
+        this.lookupCount = lookupCount;
+        this.relationshipCount = relationshipCount;
+        this.pageCount = pageCount;
+        this.cacheHitCount = cacheHitCount;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+    }
+
+    LevelStats add(TraceNode node) {
+        return new LevelStats(depth, lookupCount + 1, relationshipCount + node.getRelationshipCount(),
+                pageCount + node.getPageCount(), cacheHitCount + node.getCacheHitCount(),
+                wallNanos + node.getWallNanos(), cpuNanos + node.getCpuNanos());
+    }
+
+    /**
+     * @return The depth of the level, 0 for the root lookups.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return The number of lookups at this level.
+     */
+    public int getLookupCount() {
+        return lookupCount;
+    }
+
+    /**
+     * @return The number of relationships returned by the lookups at this level.
+     */
+    public int getRelationshipCount() {
+        return relationshipCount;
+    }
+
+    /**
+     * @return The number of API pages fetched by the lookups at this level.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * @return The number of lookups at this level answered from a cache.
+     */
+    public int getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    /**
+     * @return The summed wall-clock time of the lookups at this level. Exceeds the elapsed time when lookups run
+     * concurrently.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return The summed CPU time of the lookups at this level.
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+}
@@ -0,0 +1,168 @@
+package com.infrasight.kodtest.trace;
+
+import com.infrasight.kodtest.api.model.Relationship;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The relationship lookups made by one resolver query, arranged as the traversal tree that produced them.
+ * <p>
+ * A lookup becomes a child of the earlier lookup whose result first contained the ID it looks up, i.e. the group
+ * of a membership when following memberships upwards, or the member when following them downwards. A lookup of an
+ * ID no earlier lookup returned is a root. Lookups made while the trace is running may come from several threads.
+ * </p>
+ */
+public class QueryTrace {
+    private static final int HEAVIEST_NODES_IN_SUMMARY = 3;
+
+    private final String query;
+    private final long startNanos = System.nanoTime();
+    private final List<TraceNode> nodes = new ArrayList<>();
+    private final Map<String, TraceNode> discoveringNodesById = new ConcurrentHashMap<>();
+    private final Set<String> lookedUpKeys = ConcurrentHashMap.newKeySet();
+    private volatile long elapsedNanos = -1;
+
+    QueryTrace(String query) {
+        this.query = query;
+    }
+
+    /**
+     * Adds a lookup which is about to be made.
+     */
+    TraceNode startLookup(TraceNode.LookupType lookupType, String id) {
+        TraceNode parent = discoveringNodesById.get(id);
+        TraceNode node = new TraceNode(parent, lookupType, id, !lookedUpKeys.add(lookupType + ":" + id));
+        if (parent != null) {
+            parent.addChild(node);
+        }
+        synchronized (nodes) {
+            nodes.add(node);
+        }
+        return node;
+    }
+
+    /**
+     * Registers the IDs returned by a completed lookup, so that lookups of them become its children.
+     */
+    void completeLookup(TraceNode node, List<Relationship> relationships) {
+        for (Relationship relationship : relationships) {
+            String nextId = node.getLookupType() == TraceNode.LookupType.BY_MEMBER_ID
+                    ? relationship.getGroupId()
+                    : relationship.getMemberId();
+            if (nextId != null && !nextId.equals(node.getId())) {
+                discoveringNodesById.putIfAbsent(nextId, node);
+            }
+        }
+    }
+
+    void finish() {
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return The description of the traced query.
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return The time from the start to the end of the trace, or the time so far if it is still running.
+     */
+    public long getElapsedNanos() {
+        long elapsed = elapsedNanos;
+        return elapsed >= 0 ? elapsed : System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return All lookups of the query, in the order they were started.
+     */
+    public List<TraceNode> getNodes() {
+        synchronized (nodes) {
+            return List.copyOf(nodes);
+        }
+    }
+
+    /**
+     * @return The lookups that are the roots of the traversal tree.
+     */
+    public List<TraceNode> getRoots() {
+        return getNodes().stream().filter(node -> node.getParent() == null).collect(Collectors.toList());
+    }
+
+    /**
+     * @return The totals of the lookups at each depth of the traversal tree, starting at the roots.
+     */
+    public List<LevelStats> getLevels() {
+        List<LevelStats> levels = new ArrayList<>();
+        for (TraceNode node : getNodes()) {
+            while (levels.size() <= node.getDepth()) {
+                levels.add(new LevelStats(levels.size(), 0, 0, 0, 0, 0, 0));
+            }
+            levels.set(node.getDepth(), levels.get(node.getDepth()).add(node));
+        }
+        return levels;
+    }
+
+    /**
+     * Finds the lookups that cost the most, which are usually the groups that make a query slow.
+     *
+     * @param limit The maximum number of lookups to return.
+     * @return The lookups with the longest wall-clock time, longest first.
+     */
+    public List<TraceNode> getHeaviestNodes(int limit) {
+        return getNodes().stream()
+                .sorted(Comparator.comparingLong(TraceNode::getWallNanos).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return A one-line summary of the query: totals, one entry per level and the heaviest lookups.
+     */
+    public String getSummary() {
+        List<TraceNode> allNodes = getNodes();
+        long repeatedCount = allNodes.stream().filter(TraceNode::isRepeated).count();
+        List<LevelStats> levels = getLevels();
+
+        StringBuilder summary = new StringBuilder()
+                .append(query).append(": ")
+                .append(allNodes.size()).append(" lookups (").append(repeatedCount).append(" repeated), ")
+                .append(levels.size()).append(" levels, ")
+                .append(levels.stream().mapToInt(LevelStats::getPageCount).sum()).append(" pages, ")
+                .append(levels.stream().mapToInt(LevelStats::getCacheHitCount).sum()).append(" cache hits, ")
+                .append(toMillis(getElapsedNanos())).append(" ms");
+        for (LevelStats level : levels) {
+            summary.append(" | L").append(level.getDepth()).append(": ")
+                    .append(level.getLookupCount()).append(" lookups, ")
+                    .append(level.getRelationshipCount()).append(" rels, ")
+                    .append(level.getPageCount()).append(" pages, ")
+                    .append(level.getCacheHitCount()).append(" hits, ")
+                    .append(toMillis(level.getWallNanos())).append(" ms wall, ")
+                    .append(toMillis(level.getCpuNanos())).append(" ms cpu");
+        }
+        summary.append(" | heaviest:");
+        for (TraceNode node : getHeaviestNodes(HEAVIEST_NODES_IN_SUMMARY)) {
+            summary.append(' ').append(node.getId())
+                    .append(" (").append(node.getRelationshipCount()).append(" rels, ")
+                    .append(toMillis(node.getWallNanos())).append(" ms)");
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
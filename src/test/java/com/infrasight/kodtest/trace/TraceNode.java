@@ -0,0 +1,148 @@
+package com.infrasight.kodtest.trace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One relationship lookup made during a traced query, and the lookups it led to.
+ */
+public class TraceNode {
+    private final TraceNode parent;
+    private final LookupType lookupType;
+    private final String id;
+    private final int depth;
+    private final boolean repeated;
+    private final List<TraceNode> children = new ArrayList<>();
+
+    private int relationshipCount;
+    private int pageCount;
+    private int cacheHitCount;
+    private long wallNanos;
+    private long cpuNanos;
+
+    TraceNode(TraceNode parent, LookupType lookupType, String id, boolean repeated) {
+        this.parent = parent;
+        this.lookupType = lookupType;
+        this.id = id;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+        this.repeated = repeated;
+    }
+
+    void complete(int relationshipCount, int pageCount, int cacheHitCount, long wallNanos, long cpuNanos) {
+        this.relationshipCount = relationshipCount;
+        this.pageCount = pageCount;
+        this.cacheHitCount = cacheHitCount;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+    }
+
+    void addChild(TraceNode child) {
+        synchronized (children) {
+            children.add(child);
+        }
+    }
+
+    /**
+     * @return The lookup whose result contained the ID looked up by this one, or {@code null} for a lookup of an ID
+     * that was not found by an earlier lookup of the query.
+     */
+    public TraceNode getParent() {
+        return parent;
+    }
+
+    /**
+     * @return The lookups of IDs first found in the result of this lookup, in the order they were made.
+     */
+    public List<TraceNode> getChildren() {
+        synchronized (children) {
+            return Collections.unmodifiableList(new ArrayList<>(children));
+        }
+    }
+
+    /**
+     * @return Whether this lookup was by member ID or by group ID.
+     */
+    public LookupType getLookupType() {
+        return lookupType;
+    }
+
+    /**
+     * @return The member or group ID looked up.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The distance from the root lookup, which has depth 0.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return {@code true} if the same lookup was already made earlier in the query.
+     */
+    public boolean isRepeated() {
+        return repeated;
+    }
+
+    /**
+     * @return The number of relationships returned, i.e. the fan-out of this lookup.
+     */
+    public int getRelationshipCount() {
+        return relationshipCount;
+    }
+
+    /**
+     * @return The number of API pages fetched by this lookup on the traced thread.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * @return The number of retrievals of this lookup answered from a cache.
+     */
+    public int getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    /**
+     * @return The wall-clock time of this lookup, excluding the lookups it led to.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return The CPU time of the calling thread during this lookup, or 0 if CPU time cannot be measured.
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "TraceNode{" +
+                "lookupType=" + lookupType +
+                ", id='" + id + '\'' +
+                ", depth=" + depth +
+                ", repeated=" + repeated +
+                ", relationshipCount=" + relationshipCount +
+                ", pageCount=" + pageCount +
+                ", cacheHitCount=" + cacheHitCount +
+                ", wallNanos=" + wallNanos +
+                ", cpuNanos=" + cpuNanos +
+                '}';
+    }
+
+    /**
+     * The kind of relationship lookup a node represents.
+     */
+    public enum LookupType {
+        BY_MEMBER_ID,
+        BY_GROUP_ID
+    }
+}
@@ -0,0 +1,112 @@
+package com.infrasight.kodtest.trace;
+
+import com.infrasight.kodtest.api.client.RelationshipLookup;
+import com.infrasight.kodtest.api.model.Relationship;
+import com.infrasight.kodtest.metrics.CallTally;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A {@link RelationshipLookup} which traces the lookups of resolver queries, by wrapping the lookup the resolver
+ * would otherwise use.
+ * <p>
+ * While a trace is running, every lookup is recorded in it with its fan-out, the API pages it fetched, its cache
+ * hits, and its wall-clock and CPU time. Pages and cache hits are counted through {@link CallTally}, so they are
+ * only seen for blocking retrievals made on the thread of the lookup. Without a running trace, lookups are passed
+ * through with no overhead beyond a field read.
+ * </p>
+ */
+public class TracingRelationshipLookup implements RelationshipLookup {
+    private static final Logger logger = LoggerFactory.getLogger(TracingRelationshipLookup.class);
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final RelationshipLookup delegate;
+    private final AtomicReference<QueryTrace> currentTrace = new AtomicReference<>();
+
+    /**
+     * @param delegate The lookup that answers the lookups.
+     */
+    public TracingRelationshipLookup(RelationshipLookup delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Starts tracing the lookups of a query. Only one query can be traced at a time.
+     *
+     * @param query A description of the query, used in the summary.
+     * @return The running trace.
+     * @throws IllegalStateException If another trace is running.
+     */
+    public QueryTrace startTrace(String query) {
+        QueryTrace trace = new QueryTrace(query);
+        if (!currentTrace.compareAndSet(null, trace)) {
+            throw new IllegalStateException("A trace is already running");
+        }
+        return trace;
+    }
+
+    /**
+     * Stops the running trace and logs its summary at debug level.
+     *
+     * @return The completed trace.
+     * @throws IllegalStateException If no trace is running.
+     */
+    public QueryTrace stopTrace() {
+        QueryTrace trace = currentTrace.getAndSet(null);
+        if (trace == null) {
+            throw new IllegalStateException("No trace is running");
+        }
+        trace.finish();
+        logger.debug("{}", trace.getSummary());
+        return trace;
+    }
+
+    @Override
+    public List<Relationship> getRelationshipsByMemberId(String memberId) {
+        return lookup(TraceNode.LookupType.BY_MEMBER_ID, memberId, delegate::getRelationshipsByMemberId);
+    }
+
+    @Override
+    public List<Relationship> getRelationshipsByGroupId(String groupId) {
+        return lookup(TraceNode.LookupType.BY_GROUP_ID, groupId, delegate::getRelationshipsByGroupId);
+    }
+
+    private List<Relationship> lookup(TraceNode.LookupType lookupType, String id,
+                                      Function<String, List<Relationship>> lookup) {
+        QueryTrace trace = currentTrace.get();
+        if (trace == null) {
+            return lookup.apply(id);
+        }
+
+        TraceNode node = trace.startLookup(lookupType, id);
+        CallTally tally = CallTally.begin();
+        long startCpuNanos = getCurrentThreadCpuNanos();
+        long startNanos = System.nanoTime();
+        List<Relationship> relationships = null;
+        try {
+            relationships = lookup.apply(id);
+            return relationships;
+        } finally {
+            long wallNanos = System.nanoTime() - startNanos;
+            long cpuNanos = Math.max(getCurrentThreadCpuNanos() - startCpuNanos, 0);
+            tally.end();
+            node.complete(relationships == null ? 0 : relationships.size(), tally.getPageCount(),
+                    tally.getCacheHitCount(), wallNanos, cpuNanos);
+            if (relationships != null) {
+                trace.completeLookup(node, relationships);
+            }
+        }
+    }
+
+    private static long getCurrentThreadCpuNanos() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled()
+                ? THREAD_MX_BEAN.getCurrentThreadCpuTime()
+                : 0;
+    }
+}